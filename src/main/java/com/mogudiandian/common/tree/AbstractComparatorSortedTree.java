@@ -0,0 +1,159 @@
+package com.mogudiandian.common.tree;
+
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * 抽象比较器排序树
+ * 与{@link AbstractSortedTree}不同 节点无需实现Comparable 树化时子节点直接追加 树化完成后每个节点的子节点只排序一次
+ * 比较结果相等的子节点不会被丢弃 而是保持树化时的先后顺序
+ * 顶层节点和子节点都是有序的 所以指纹与顺序相关
+ * 非线程安全
+ *
+ * @param <V> 节点值类型
+ * @param <I> 节点唯一标识类型
+ * @param <N> 当前对象类型
+ * @author Joshua Sun
+ * @since 2023/7/24
+ */
+public abstract class AbstractComparatorSortedTree<V, I, N extends AbstractComparatorSortedTreeNode<V, I, N>> extends AbstractTree<V, I, N> {
+
+    /**
+     * 节点数量达到该值时并行排序
+     */
+    private static final int PARALLEL_THRESHOLD = 10000;
+
+    /**
+     * 子节点的比较器
+     */
+    private Comparator<? super N> comparator;
+
+    public <C extends Collection<N>> AbstractComparatorSortedTree(C nodes, Comparator<? super N> comparator) {
+        this(nodes, false, null, comparator);
+    }
+
+    public <C extends Collection<N>> AbstractComparatorSortedTree(C nodes, OrphanPolicy orphanPolicy, Comparator<? super N> comparator) {
+        this(nodes, false, orphanPolicy, comparator);
+    }
+
+    public <C extends Collection<N>> AbstractComparatorSortedTree(C nodes, boolean noRoot, Comparator<? super N> comparator) {
+        this(nodes, noRoot, null, comparator);
+    }
+
+    public <C extends Collection<N>> AbstractComparatorSortedTree(C nodes, boolean noRoot, OrphanPolicy orphanPolicy, Comparator<? super N> comparator) {
+        super(nodes, noRoot, orphanPolicy);
+        if (comparator == null) {
+            throw new RuntimeException("Comparator can not be null");
+        }
+        this.comparator = comparator;
+        sort();
+    }
+
+    /**
+     * 按当前比较器重新排序所有子节点 树化后如果调整了节点或节点的排序字段发生变化 需要调用该方法
+     * 节点数量较多时并行排序 排序后子节点顺序改变的节点的子树指纹会失效
+     */
+    public void sort() {
+        if (type == Type.FOREST && topNodes.size() > 1) {
+            sortChildren(topNodes);
+        }
+        List<N> parents = new ArrayList<>();
+        dft(node -> {
+            Collection<N> children = children(node);
+            if (children != null && children.size() > 1) {
+                parents.add(node);
+            }
+        });
+
+        Predicate<N> sortParent = node -> sortChildren(node.getChildren());
+        List<N> changedParents;
+        if (cachedSize() >= PARALLEL_THRESHOLD) {
+            changedParents = parents.parallelStream().filter(sortParent).collect(Collectors.toList());
+        } else {
+            changedParents = parents.stream().filter(sortParent).collect(Collectors.toList());
+        }
+        // 指纹失效会沿父节点向上传播 所以排序完成后再串行处理
+        changedParents.forEach(AbstractTreeNode::invalidateSubtreeHash);
+    }
+
+    /**
+     * 对一组子节点排序
+     * @param children 子节点
+     * @return 顺序是否改变
+     */
+    private boolean sortChildren(Collection<N> children) {
+        List<N> before = new ArrayList<>(children);
+        List<N> sorted;
+        if (children instanceof IndexedSet) {
+            ((IndexedSet<N>) children).sort(comparator);
+            sorted = new ArrayList<>(children);
+        } else {
+            sorted = new ArrayList<>(before);
+            sorted.sort(comparator);
+            children.clear();
+            children.addAll(sorted);
+        }
+        return !isSameOrder(before, sorted);
+    }
+
+    /**
+     * 两个列表的元素是否依次为同一个对象
+     */
+    private static <T> boolean isSameOrder(List<T> list1, List<T> list2) {
+        for (int i = 0, size = list1.size(); i < size; i++) {
+            if (list1.get(i) != list2.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 获取节点在兄弟节点中的下标 子节点为IndexedSet时为O(1)
+     * @param node 节点
+     * @return 下标 不在树上返回-1
+     */
+    public int indexOf(N node) {
+        Collection<N> siblings = node.isTop() ? topNodes : node.getParent().getChildren();
+        if (siblings == null) {
+            return node == root ? 0 : -1;
+        }
+        if (siblings instanceof IndexedSet) {
+            return ((IndexedSet<N>) siblings).indexOf(node);
+        }
+        int index = 0;
+        for (N sibling : siblings) {
+            if (sibling.equals(node)) {
+                return index;
+            }
+            index++;
+        }
+        return -1;
+    }
+
+    /**
+     * 获取子节点的比较器
+     * @return 比较器
+     */
+    public Comparator<? super N> getComparator() {
+        return comparator;
+    }
+
+    /**
+     * 修改子节点的比较器 修改后会按新的比较器重新排序 不会重新树化
+     * @param comparator 比较器
+     */
+    public void setComparator(Comparator<? super N> comparator) {
+        if (comparator == null) {
+            throw new RuntimeException("Comparator can not be null");
+        }
+        this.comparator = comparator;
+        sort();
+    }
+
+    @Override
+    protected boolean isTopNodesOrdered() {
+        return true;
+    }
+}
@@ -0,0 +1,24 @@
+package com.mogudiandian.common.tree;
+
+/**
+ * 比较器排序树的节点 用于构造比较器排序树
+ * 子节点的顺序由树的比较器决定 所以子树指纹与子节点顺序相关
+ *
+ * @param <V> 节点值类型
+ * @param <I> 节点唯一标识类型
+ * @param <N> 当前对象类型
+ * @author Joshua Sun
+ * @since 2023/7/24
+ */
+public abstract class AbstractComparatorSortedTreeNode<V, I, N extends AbstractComparatorSortedTreeNode<V, I, N>> extends AbstractTreeNode<V, I, N> {
+
+    public AbstractComparatorSortedTreeNode(V value) {
+        super(value);
+    }
+
+    @Override
+    protected boolean isChildrenOrdered() {
+        return true;
+    }
+
+}
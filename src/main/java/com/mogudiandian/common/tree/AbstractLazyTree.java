@@ -0,0 +1,366 @@
+package com.mogudiandian.common.tree;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+/**
+ * 抽象懒加载树
+ * 构造时只需要顶层节点 节点的子节点在第一次展开时通过{@link ChildLoader}加载 展开时会把未展开的兄弟节点合并为一次加载
+ * 已展开的节点按LRU淘汰 淘汰后其子树会被卸载 再次展开时重新加载
+ * 遍历会展开所有经过的节点 所以对整个树执行dft/flat/size会加载整个树 大树应使用限制深度的遍历 cachedSize为已加载的节点数量
+ * 非线程安全
+ *
+ * @param <V> 节点值类型
+ * @param <I> 节点唯一标识类型
+ * @param <N> 当前对象类型
+ * @author Joshua Sun
+ * @since 2023/7/24
+ */
+public abstract class AbstractLazyTree<V, I, N extends AbstractTreeNode<V, I, N>> extends AbstractTree<V, I, N> {
+
+    /**
+     * 默认每次加载最多的父节点数量
+     */
+    private static final int DEFAULT_BATCH_SIZE = 100;
+
+    /**
+     * 默认最多保留的已展开节点数量
+     */
+    private static final int DEFAULT_MAX_EXPANDED_NODES = 10000;
+
+    /**
+     * 子节点加载器
+     */
+    private final ChildLoader<I, N> loader;
+
+    /**
+     * 每次加载最多的父节点数量
+     */
+    private final int batchSize;
+
+    /**
+     * 最多保留的已展开节点数量
+     */
+    private final int maxExpandedNodes;
+
+    /**
+     * 异步预加载使用的线程池
+     */
+    private final Executor executor;
+
+    /**
+     * 已展开的节点 按访问顺序排列 最久未访问的在最前面
+     */
+    private final LinkedHashMap<N, Boolean> expandedNodes = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * 正在预加载的节点
+     */
+    private final Map<N, Prefetch<N>> prefetchingNodes = new HashMap<>();
+
+    /**
+     * 遍历中因超出深度而未展开 等待预加载的节点
+     */
+    private List<N> prunedNodes = new ArrayList<>();
+
+    /**
+     * 构造懒加载树
+     * @param nodes 顶层节点
+     * @param noRoot 构造树/森林 树为false 森林为true
+     * @param loader 子节点加载器
+     * @param <C> 节点集合类型
+     */
+    public <C extends Collection<N>> AbstractLazyTree(C nodes, boolean noRoot, ChildLoader<I, N> loader) {
+        this(nodes, noRoot, loader, DEFAULT_BATCH_SIZE, DEFAULT_MAX_EXPANDED_NODES, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 构造懒加载树
+     * @param nodes 顶层节点
+     * @param noRoot 构造树/森林 树为false 森林为true
+     * @param loader 子节点加载器
+     * @param batchSize 每次加载最多的父节点数量
+     * @param maxExpandedNodes 最多保留的已展开节点数量 超过后按LRU淘汰
+     * @param executor 异步预加载使用的线程池
+     * @param <C> 节点集合类型
+     */
+    public <C extends Collection<N>> AbstractLazyTree(C nodes, boolean noRoot, ChildLoader<I, N> loader, int batchSize, int maxExpandedNodes, Executor executor) {
+        super(nodes, noRoot, OrphanPolicy.REJECT);
+        if (batchSize <= 0 || maxExpandedNodes <= 0) {
+            throw new IllegalArgumentException("Batch size and max expanded nodes must be positive");
+        }
+        this.loader = loader;
+        this.batchSize = batchSize;
+        this.maxExpandedNodes = maxExpandedNodes;
+        this.executor = executor;
+    }
+
+    /**
+     * 展开节点 未展开时加载子节点 会同时加载未展开的兄弟节点
+     * @param node 节点
+     * @return 子节点 叶子节点返回null
+     */
+    public Collection<N> expand(N node) {
+        if (expandedNodes.get(node) == null) {
+            List<N> batch = new ArrayList<>();
+            batch.add(node);
+            Collection<N> siblings = node.isTop() ? topNodes : node.getParent().getChildren();
+            if (siblings != null) {
+                for (Iterator<N> iterator = siblings.iterator(); iterator.hasNext() && batch.size() < batchSize; ) {
+                    N sibling = iterator.next();
+                    if (sibling != node && !expandedNodes.containsKey(sibling) && !prefetchingNodes.containsKey(sibling)) {
+                        batch.add(sibling);
+                    }
+                }
+            }
+            load(batch);
+        }
+        // 祖先节点比后代节点更晚被淘汰 这样淘汰时只会卸载最末端的子树
+        for (N current = node; current != null; current = current.getParent()) {
+            expandedNodes.get(current);
+        }
+        evict(node);
+        return node.getChildren();
+    }
+
+    /**
+     * 节点是否已展开
+     * @param node 节点
+     * @return 是否已展开
+     */
+    public boolean isExpanded(N node) {
+        return expandedNodes.containsKey(node);
+    }
+
+    /**
+     * 异步预加载节点的子节点 按批次调用加载器 结果在节点展开时才挂到树上
+     * @param nodes 节点
+     */
+    public void prefetch(Collection<N> nodes) {
+        List<N> batch = new ArrayList<>();
+        for (N node : nodes) {
+            if (!expandedNodes.containsKey(node) && !prefetchingNodes.containsKey(node)) {
+                batch.add(node);
+                if (batch.size() >= batchSize) {
+                    prefetchBatch(batch);
+                    batch = new ArrayList<>();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            prefetchBatch(batch);
+        }
+    }
+
+    /**
+     * 异步预加载一批节点的子节点
+     * @param batch 一批节点
+     */
+    private void prefetchBatch(List<N> batch) {
+        List<I> identifiers = identifiers(batch);
+        Prefetch<N> prefetch = new Prefetch<>(batch, CompletableFuture.supplyAsync(() -> loader.load(identifiers), executor));
+        batch.forEach(node -> prefetchingNodes.put(node, prefetch));
+    }
+
+    /**
+     * 限制深度和访问数量的深度优先遍历 因超出深度而未展开的节点会异步预加载其子节点
+     * @param fromNodes 要从哪些节点开始遍历
+     * @param limit 遍历限制
+     * @param visitor 访问到节点执行的函数 并返回是否遍历动作
+     */
+    @Override
+    public void dft(Collection<N> fromNodes, TraversingLimit limit, Function<N, TraversingAction> visitor) {
+        try {
+            super.dft(fromNodes, limit, visitor);
+        } finally {
+            if (!prunedNodes.isEmpty()) {
+                List<N> nodes = prunedNodes;
+                prunedNodes = new ArrayList<>();
+                prefetch(nodes);
+            }
+        }
+    }
+
+    /**
+     * 收集因超出深度而未展开的节点 攒够一批就预加载
+     * @param node 节点
+     */
+    @Override
+    protected void pruned(N node) {
+        if (!expandedNodes.containsKey(node) && !prefetchingNodes.containsKey(node)) {
+            prunedNodes.add(node);
+            if (prunedNodes.size() >= batchSize) {
+                List<N> nodes = prunedNodes;
+                prunedNodes = new ArrayList<>();
+                prefetch(nodes);
+            }
+        }
+    }
+
+    /**
+     * 加载一批节点的子节点 已在预加载的节点使用预加载的结果
+     * @param batch 一批节点
+     */
+    private void load(List<N> batch) {
+        Set<N> parents = new LinkedHashSet<>();
+        for (N node : batch) {
+            if (expandedNodes.containsKey(node)) {
+                continue;
+            }
+            Prefetch<N> prefetch = prefetchingNodes.get(node);
+            if (prefetch == null) {
+                parents.add(node);
+                continue;
+            }
+            prefetch.parents.forEach(prefetchingNodes::remove);
+            Collection<N> children;
+            try {
+                children = prefetch.future.join();
+            } catch (RuntimeException e) {
+                // 预加载失败 改为同步加载
+                parents.addAll(prefetch.parents);
+                continue;
+            }
+            link(prefetch.parents, children);
+        }
+        if (!parents.isEmpty()) {
+            link(parents, loader.load(identifiers(parents)));
+        }
+    }
+
+    /**
+     * 将加载到的子节点挂到父节点下 并标记父节点已展开
+     * @param parents 父节点
+     * @param children 子节点
+     */
+    private void link(Collection<N> parents, Collection<N> children) {
+        Map<I, N> parentMap = new LinkedHashMap<>();
+        for (N parent : parents) {
+            if (!expandedNodes.containsKey(parent)) {
+                parentMap.put(parent.extractIdentifier(), parent);
+            }
+        }
+        if (children != null) {
+            for (N child : children) {
+                N parent = parentMap.get(child.extractParentIdentifier());
+                if (parent != null && child.isValidNode() && (parent.children == null || !parent.children.contains(child))) {
+                    parent.addChild(child);
+                    indexNode(child);
+                    adjustSize(1);
+                }
+            }
+        }
+        parentMap.values().forEach(parent -> expandedNodes.put(parent, Boolean.TRUE));
+    }
+
+    /**
+     * 淘汰最久未访问的已展开节点
+     * 正在展开的节点及其祖先节点不会被淘汰 否则遍历中的子树会被卸载 路径比最多保留的数量长时允许暂时超出
+     * @param pinned 正在展开的节点
+     */
+    private void evict(N pinned) {
+        if (expandedNodes.size() <= maxExpandedNodes) {
+            return;
+        }
+        Set<N> path = new HashSet<>();
+        for (N current = pinned; current != null; current = current.getParent()) {
+            path.add(current);
+        }
+        while (expandedNodes.size() > maxExpandedNodes) {
+            N eldest = null;
+            for (N node : expandedNodes.keySet()) {
+                if (!path.contains(node)) {
+                    eldest = node;
+                    break;
+                }
+            }
+            if (eldest == null) {
+                return;
+            }
+            collapse(eldest);
+        }
+    }
+
+    /**
+     * 收起节点 卸载其子树
+     * 子节点的父节点引用保持不变 这样正在遍历中的节点仍然可以计算层级和路径
+     * @param node 节点
+     */
+    public void collapse(N node) {
+        expandedNodes.remove(node);
+        prefetchingNodes.remove(node);
+        Collection<N> children = node.children;
+        if (children != null) {
+            for (N child : children) {
+                collapse(child);
+                unindexNode(child);
+            }
+            adjustSize(-children.size());
+            node.children = null;
+            node.invalidateSubtreeHash();
+        }
+    }
+
+    /**
+     * 摘除子树 摘除后的树只包含已加载的节点 不会再懒加载
+     * @param node 子树的根节点
+     * @return 摘除后的独立的树
+     */
+    @Override
+    public SubTree<V, I, N> detach(N node) {
+        SubTree<V, I, N> subTree = super.detach(node);
+        subTree.dft(x -> {
+            expandedNodes.remove(x);
+            prefetchingNodes.remove(x);
+        });
+        return subTree;
+    }
+
+    /**
+     * 获取节点的唯一标识
+     * @param nodes 节点
+     * @return 唯一标识
+     */
+    private List<I> identifiers(Collection<N> nodes) {
+        List<I> identifiers = new ArrayList<>(nodes.size());
+        for (N node : nodes) {
+            identifiers.add(node.extractIdentifier());
+        }
+        return identifiers;
+    }
+
+    /**
+     * 遍历时展开节点
+     * @param node 节点
+     * @return 子节点
+     */
+    @Override
+    protected Collection<N> children(N node) {
+        return expand(node);
+    }
+
+    /**
+     * 预加载任务
+     * @param <N> 节点类型
+     */
+    private static class Prefetch<N> {
+
+        /**
+         * 一起加载的父节点
+         */
+        private final List<N> parents;
+
+        /**
+         * 加载结果
+         */
+        private final CompletableFuture<Collection<N>> future;
+
+        private Prefetch(List<N> parents, CompletableFuture<Collection<N>> future) {
+            this.parents = parents;
+            this.future = future;
+        }
+    }
+}
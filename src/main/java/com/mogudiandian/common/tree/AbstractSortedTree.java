@@ -2,7 +2,6 @@ package com.mogudiandian.common.tree;
 
 import java.util.Collection;
 import java.util.Set;
-import java.util.TreeSet;
 
 /**
  * 抽象可排序树
@@ -34,6 +33,11 @@ public abstract class AbstractSortedTree<V, I, N extends AbstractSortedTreeNode<
 
     @Override
     protected Set<N> initTopNodes() {
-        return new TreeSet<>();
+        return new SortedIndexedSet<>();
+    }
+
+    @Override
+    protected boolean isTopNodesOrdered() {
+        return true;
     }
 }
@@ -1,7 +1,6 @@
 package com.mogudiandian.common.tree;
 
 import java.util.Set;
-import java.util.TreeSet;
 
 /**
  * 有序的树节点 用于构造可排序树
@@ -20,7 +19,12 @@ public abstract class AbstractSortedTreeNode<V, I, N extends AbstractSortedTreeN
 
     @Override
     protected Set<N> initChildren() {
-        return new TreeSet<>();
+        return new SortedIndexedSet<>();
+    }
+
+    @Override
+    protected boolean isChildrenOrdered() {
+        return true;
     }
 
 }
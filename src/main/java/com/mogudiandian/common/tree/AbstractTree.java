@@ -2,10 +2,16 @@ package com.mogudiandian.common.tree;
 
 import java.io.PrintStream;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
 
 /**
  * 抽象树
@@ -39,6 +45,16 @@ public abstract class AbstractTree<V, I, N extends AbstractTreeNode<V, I, N>> {
      */
     private int size;
 
+    /**
+     * 唯一标识索引 树化时建立 视图在第一次使用时建立
+     */
+    private Map<I, N> index;
+
+    /**
+     * 层级索引 第k个元素为第k层的所有节点 只有isLayerIndexed返回true时才建立
+     */
+    private List<Set<N>> layers;
+
     /**
      * 构造树
      * @param nodes 未树化的节点集合
@@ -83,6 +99,162 @@ public abstract class AbstractTree<V, I, N extends AbstractTreeNode<V, I, N>> {
         this.type = noRoot ? Type.FOREST : Type.TREE;
 
         treeize(nodes, noRoot, orphanPolicy);
+
+        if (isLayerIndexed()) {
+            buildLayerIndex();
+        }
+    }
+
+    /**
+     * 构造视图 直接使用已树化的节点 不会重新树化
+     * @param type 类型 树/森林
+     * @param root 根节点 森林时为null
+     * @param topNodes 顶层节点 树时为null
+     * @param size 节点数量
+     */
+    protected AbstractTree(Type type, N root, Set<N> topNodes, int size) {
+        this.type = type;
+        this.root = root;
+        this.topNodes = topNodes;
+        this.size = size;
+    }
+
+    /**
+     * 按嵌套集合模型构造 节点必须按左值升序排列 一次遍历即可完成 不需要建立唯一标识的分组
+     * @param nodes 按左值升序排列的节点集合
+     * @param noRoot 构造树/森林 树为false 森林为true
+     * @param leftFunction 获取节点左值的函数
+     * @param rightFunction 获取节点右值的函数
+     * @param <C> 节点集合类型
+     */
+    protected <C extends Collection<N>> AbstractTree(C nodes, boolean noRoot, ToIntFunction<N> leftFunction, ToIntFunction<N> rightFunction) {
+        if (nodes == null || nodes.isEmpty()) {
+            throw new RuntimeException("Nodes can not be empty");
+        }
+
+        this.type = noRoot ? Type.FOREST : Type.TREE;
+
+        List<N> nodeList = new ArrayList<>(nodes);
+        int[] lefts = new int[nodeList.size()];
+        int[] rights = new int[nodeList.size()];
+        for (int i = 0; i < lefts.length; i++) {
+            N node = nodeList.get(i);
+            lefts[i] = leftFunction.applyAsInt(node);
+            rights[i] = rightFunction.applyAsInt(node);
+        }
+        treeizeNestedSet(nodeList, lefts, rights, noRoot);
+    }
+
+    /**
+     * 按嵌套集合模型导出的行构造 行不需要排序 例如exportNestedSet按后序输出的行
+     * @param rows 嵌套集合模型的行
+     * @param noRoot 构造树/森林 树为false 森林为true
+     * @param nodeFunction 根据唯一标识创建节点的函数
+     */
+    protected AbstractTree(Collection<NestedSetRow<I>> rows, boolean noRoot, Function<I, N> nodeFunction) {
+        if (rows == null || rows.isEmpty()) {
+            throw new RuntimeException("Rows can not be empty");
+        }
+
+        this.type = noRoot ? Type.FOREST : Type.TREE;
+
+        List<NestedSetRow<I>> sortedRows = new ArrayList<>(rows);
+        sortedRows.sort(Comparator.comparingInt(NestedSetRow::getLeft));
+        // 节点与左右值按下标对应
+        List<N> nodes = new ArrayList<>(sortedRows.size());
+        int[] lefts = new int[sortedRows.size()];
+        int[] rights = new int[sortedRows.size()];
+        for (NestedSetRow<I> row : sortedRows) {
+            N node = nodeFunction.apply(row.getIdentifier());
+            if (node == null) {
+                throw new IllegalStateException("Cannot create node for row " + row);
+            }
+            lefts[nodes.size()] = row.getLeft();
+            rights[nodes.size()] = row.getRight();
+            nodes.add(node);
+        }
+        treeizeNestedSet(nodes, lefts, rights, noRoot);
+    }
+
+    /**
+     * 按嵌套集合模型树化
+     * @param nodes 按左值升序排列的节点列表
+     * @param lefts 节点的左值 与节点按下标对应
+     * @param rights 节点的右值 与节点按下标对应
+     * @param noRoot 构造树/森林 树为false 森林为true
+     */
+    private void treeizeNestedSet(List<N> nodes, int[] lefts, int[] rights, boolean noRoot) {
+        if (isLayerIndexed()) {
+            layers = new ArrayList<>();
+        }
+
+        // 当前节点的祖先节点及其右值
+        Deque<N> ancestors = new ArrayDeque<>();
+        Deque<Integer> ancestorRights = new ArrayDeque<>();
+        // 无效节点的右值 其后代节点也不参与树化
+        int invalidRight = Integer.MIN_VALUE;
+        int previousLeft = Integer.MIN_VALUE;
+
+        for (int i = 0; i < lefts.length; i++) {
+            N node = nodes.get(i);
+            int left = lefts[i];
+            int right = rights[i];
+            if (left <= previousLeft) {
+                throw new IllegalStateException("Nodes must be sorted by left value, but found " + left + " after " + previousLeft);
+            }
+            if (right <= left) {
+                throw new IllegalStateException("Right value " + right + " must be greater than left value " + left + " for node " + node);
+            }
+            previousLeft = left;
+
+            // 无效则跳过
+            if (left < invalidRight) {
+                continue;
+            }
+            if (!node.isValidNode()) {
+                invalidRight = right;
+                continue;
+            }
+
+            // 弹出已经结束的祖先节点
+            while (!ancestors.isEmpty() && ancestorRights.peek() < left) {
+                ancestors.pop();
+                ancestorRights.pop();
+            }
+
+            if (ancestors.isEmpty()) {
+                // 没有祖先节点 加入到顶层
+                if (noRoot) {
+                    if (topNodes == null) {
+                        topNodes = initTopNodes();
+                    }
+                    topNodes.add(node);
+                } else if (root == null) {
+                    root = node;
+                } else {
+                    throw new IllegalStateException("Found replicated root node " + node);
+                }
+            } else {
+                // 后代的右值必须小于祖先的右值
+                if (right >= ancestorRights.peek()) {
+                    throw new IllegalStateException("Node " + node + " overlaps its parent node " + ancestors.peek());
+                }
+                ancestors.peek().addChild(node);
+            }
+            size++;
+
+            // 祖先节点的数量就是层数 顺便建立层级索引
+            node.setLayer(ancestors.size());
+            if (layers != null) {
+                addToLayerIndex(node);
+            }
+
+            // 还有后代节点时入栈
+            if (right - left > 1) {
+                ancestors.push(node);
+                ancestorRights.push(right);
+            }
+        }
     }
 
     /**
@@ -159,6 +331,9 @@ public abstract class AbstractTree<V, I, N extends AbstractTreeNode<V, I, N>> {
             }
             size += orphans.size();
         }
+
+        // 树化用的分组即为唯一标识索引
+        index = map;
     }
 
     /**
@@ -167,8 +342,33 @@ public abstract class AbstractTree<V, I, N extends AbstractTreeNode<V, I, N>> {
      * @param visitor 访问到节点执行的函数 并返回是否遍历动作
      */
     public void dft(Collection<N> fromNodes, Function<N, TraversingAction> visitor) {
-        for (LinkedList<N> linkedList = new LinkedList<>(fromNodes); !linkedList.isEmpty(); ) {
-            N current = linkedList.removeFirst();
+        dft(fromNodes, TraversingLimit.NONE, visitor);
+    }
+
+    /**
+     * 限制深度和访问数量的深度优先遍历 超出深度的子树不会被访问
+     * @param fromNodes 要从哪些节点开始遍历
+     * @param limit 遍历限制
+     * @param visitor 访问到节点执行的函数 并返回是否遍历动作
+     */
+    public void dft(Collection<N> fromNodes, TraversingLimit limit, Function<N, TraversingAction> visitor) {
+        int maxDepth = limit.getMaxDepth();
+        int maxVisits = limit.getMaxVisits();
+        int visits = 0;
+        // 栈中每一层对应一层节点 所以栈的深度就是当前节点的深度
+        Deque<Iterator<N>> stack = new ArrayDeque<>();
+        stack.push(new ArrayList<>(fromNodes).iterator());
+        while (!stack.isEmpty()) {
+            Iterator<N> iterator = stack.peek();
+            if (!iterator.hasNext()) {
+                stack.pop();
+                continue;
+            }
+            if (maxVisits >= 0 && visits >= maxVisits) {
+                break;
+            }
+            N current = iterator.next();
+            visits++;
             TraversingAction action = visitor.apply(current);
             if (action == TraversingAction.STOP) {
                 break;
@@ -176,13 +376,27 @@ public abstract class AbstractTree<V, I, N extends AbstractTreeNode<V, I, N>> {
             if (action == TraversingAction.SKIP) {
                 continue;
             }
-            if (!current.isLeaf()) {
-                // 这里要用头插法 将该元素的子节点按顺序加入到遍历列表中
-                linkedList.addAll(0, current.getChildren());
+            if (maxDepth >= 0 && stack.size() > maxDepth) {
+                pruned(current);
+                continue;
+            }
+            Collection<N> children = children(current);
+            if (children != null && !children.isEmpty()) {
+                // 复制一份子节点 访问函数调整树结构时不影响遍历
+                stack.push(new ArrayList<>(children).iterator());
             }
         }
     }
 
+    /**
+     * 限制深度和访问数量的深度优先遍历整个树
+     * @param limit 遍历限制
+     * @param visitor 访问到节点执行的函数 并返回是否遍历动作
+     */
+    public void dft(TraversingLimit limit, Function<N, TraversingAction> visitor) {
+        dft(startNodes(), limit, visitor);
+    }
+
     /**
      * 深度优先遍历
      * @param fromNode 要从哪个节点开始遍历
@@ -239,6 +453,44 @@ public abstract class AbstractTree<V, I, N extends AbstractTreeNode<V, I, N>> {
         };
     }
 
+    /**
+     * 异步深度优先遍历 兄弟节点和互不相关的子树并发访问
+     * 节点的访问结果返回CONTINUE后才会访问其子节点 返回SKIP不访问其子节点 返回STOP后不再访问新的节点
+     * 遍历期间树的结构不应调整
+     * @param fromNodes 要从哪些节点开始遍历
+     * @param visitor 访问到节点执行的异步函数 并返回是否遍历动作
+     * @param parallelism 最多同时访问的节点数量
+     * @param executor 执行访问函数的线程池
+     * @return 所有访问结束后完成 访问函数抛出异常时以该异常完成
+     */
+    public CompletableFuture<Void> dftAsync(Collection<N> fromNodes, Function<N, CompletableFuture<TraversingAction>> visitor, int parallelism, Executor executor) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        return new AsyncTraversal(visitor, parallelism, executor).start(fromNodes);
+    }
+
+    /**
+     * 异步深度优先遍历整个树
+     * @param visitor 访问到节点执行的异步函数 并返回是否遍历动作
+     * @param parallelism 最多同时访问的节点数量
+     * @param executor 执行访问函数的线程池
+     * @return 所有访问结束后完成 访问函数抛出异常时以该异常完成
+     */
+    public CompletableFuture<Void> dftAsync(Function<N, CompletableFuture<TraversingAction>> visitor, int parallelism, Executor executor) {
+        return dftAsync(startNodes(), visitor, parallelism, executor);
+    }
+
+    /**
+     * 异步深度优先遍历整个树 JDK21及以上使用虚拟线程执行访问函数 否则使用公共线程池
+     * @param visitor 访问到节点执行的异步函数 并返回是否遍历动作
+     * @param parallelism 最多同时访问的节点数量
+     * @return 所有访问结束后完成 访问函数抛出异常时以该异常完成
+     */
+    public CompletableFuture<Void> dftAsync(Function<N, CompletableFuture<TraversingAction>> visitor, int parallelism) {
+        return dftAsync(visitor, parallelism, AsyncExecutorHolder.EXECUTOR);
+    }
+
     /**
      * 扁平化
      * @param fromNodes 从哪些节点执行
@@ -246,15 +498,46 @@ public abstract class AbstractTree<V, I, N extends AbstractTreeNode<V, I, N>> {
      * @return 扁平的节点集合
      */
     public List<N> flat(Collection<N> fromNodes, Predicate<N> predicate) {
+        return flat(fromNodes, predicate, TraversingLimit.NONE);
+    }
+
+    /**
+     * 限制深度和访问数量的扁平化
+     * @param fromNodes 从哪些节点执行
+     * @param predicate 判断是否需要当前节点
+     * @param limit 遍历限制
+     * @return 扁平的节点集合
+     */
+    public List<N> flat(Collection<N> fromNodes, Predicate<N> predicate, TraversingLimit limit) {
         List<N> list = new ArrayList<>();
-        dft(fromNodes, current -> {
+        dft(fromNodes, limit, current -> {
             if (predicate.test(current)) {
                 list.add(current);
             }
+            return TraversingAction.CONTINUE;
         });
         return list;
     }
 
+    /**
+     * 限制深度和访问数量的扁平化整个树
+     * @param predicate 判断是否需要当前节点
+     * @param limit 遍历限制
+     * @return 扁平的节点集合
+     */
+    public List<N> flat(Predicate<N> predicate, TraversingLimit limit) {
+        return flat(startNodes(), predicate, limit);
+    }
+
+    /**
+     * 限制深度和访问数量的扁平化整个树
+     * @param limit 遍历限制
+     * @return 扁平的节点集合
+     */
+    public List<N> flat(TraversingLimit limit) {
+        return flat(startNodes(), x -> true, limit);
+    }
+
     /**
      * 扁平化
      * @param fromNode 从哪个节点执行
@@ -319,8 +602,19 @@ public abstract class AbstractTree<V, I, N extends AbstractTreeNode<V, I, N>> {
      * @return 查找到的节点 找不到则返回null
      */
     public N dfs(Collection<N> fromNodes, Predicate<N> predicate) {
+        return dfs(fromNodes, predicate, TraversingLimit.NONE);
+    }
+
+    /**
+     * 限制深度和访问数量 根据条件查找节点
+     * @param fromNodes 从哪些节点开始查找
+     * @param predicate 判断是否是待查找的节点
+     * @param limit 遍历限制
+     * @return 查找到的节点 找不到则返回null
+     */
+    public N dfs(Collection<N> fromNodes, Predicate<N> predicate, TraversingLimit limit) {
         AtomicReference<N> nodeRef = new AtomicReference<>();
-        dft(fromNodes, current -> {
+        dft(fromNodes, limit, current -> {
             if (predicate.test(current)) {
                 nodeRef.set(current);
             }
@@ -351,6 +645,280 @@ public abstract class AbstractTree<V, I, N extends AbstractTreeNode<V, I, N>> {
         return dfs(topNodes, predicate);
     }
 
+    /**
+     * 限制深度和访问数量 根据条件从整个树查找节点
+     * @param predicate 判断是否是待查找的节点
+     * @param limit 遍历限制
+     * @return 查找到的节点 找不到则返回null
+     */
+    public N dfs(Predicate<N> predicate, TraversingLimit limit) {
+        return dfs(startNodes(), predicate, limit);
+    }
+
+    /**
+     * 根据条件查找多个节点 找到指定数量后立即停止遍历
+     * @param fromNodes 从哪些节点开始查找
+     * @param predicate 判断是否是待查找的节点
+     * @param limit 最多查找的数量
+     * @return 查找到的节点 按深度优先的顺序排列
+     */
+    public List<N> dfsAll(Collection<N> fromNodes, Predicate<N> predicate, int limit) {
+        List<N> list = new ArrayList<>();
+        if (limit <= 0) {
+            return list;
+        }
+        dft(fromNodes, current -> {
+            if (predicate.test(current)) {
+                list.add(current);
+            }
+            return list.size() < limit ? TraversingAction.CONTINUE : TraversingAction.STOP;
+        });
+        return list;
+    }
+
+    /**
+     * 根据条件从整个树查找多个节点 找到指定数量后立即停止遍历
+     * @param predicate 判断是否是待查找的节点
+     * @param limit 最多查找的数量
+     * @return 查找到的节点 按深度优先的顺序排列
+     */
+    public List<N> dfsAll(Predicate<N> predicate, int limit) {
+        return dfsAll(startNodes(), predicate, limit);
+    }
+
+    /**
+     * 按路径模式查询节点 不可能匹配的子树不会被访问
+     * @param pattern 编译后的路径模式
+     * @param nameFunction 获取节点在路径中名称的函数
+     * @return 匹配的节点 按深度优先的顺序排列
+     */
+    public List<N> select(PathPattern pattern, Function<N, String> nameFunction) {
+        return pattern.select(this, nameFunction);
+    }
+
+    /**
+     * 根据唯一标识查找节点
+     * @param identifier 唯一标识
+     * @return 查找到的节点 找不到则返回null
+     */
+    public N find(I identifier) {
+        return index().get(identifier);
+    }
+
+    /**
+     * 获取以某个节点为根的子树视图 不复制节点也不改变节点关系
+     * 视图有独立的大小、遍历、查找和输出 输出时层级从子树的根开始计算
+     * @param node 子树的根节点
+     * @return 子树视图
+     */
+    public SubTree<V, I, N> subtree(N node) {
+        return new SubTree<>(this, node);
+    }
+
+    /**
+     * 将以某个节点为根的子树从当前树中摘除 成为独立的树 当前树的节点数量随之减少
+     * @param node 子树的根节点
+     * @return 摘除后的独立的树
+     */
+    public SubTree<V, I, N> detach(N node) {
+        if (node == root) {
+            throw new IllegalStateException("Cannot detach the root node " + node);
+        }
+        if (node.isTop() && (topNodes == null || !topNodes.contains(node))) {
+            throw new IllegalStateException("Cannot find top node " + node);
+        }
+
+        // 先从索引中移除 此时节点的层数还是在当前树中的层数
+        SubTree<V, I, N> subTree = new SubTree<>(null, node);
+        if (index != null || layers != null) {
+            subTree.dft(this::unindexNode);
+        }
+
+        if (node.isTop()) {
+            topNodes.remove(node);
+        } else {
+            N parent = node.parent;
+            parent.invalidateSubtreeHash();
+            parent.children.remove(node);
+            node.parent = null;
+        }
+        node.resetLayer();
+
+        size -= subTree.cachedSize();
+        return subTree;
+    }
+
+    /**
+     * 将另一个树/森林嫁接到某个节点下 另一个树的根节点或所有顶层节点成为该节点的子节点
+     * 唯一标识重复时拒绝 嫁接后另一个树不应再使用
+     * @param parent 嫁接到哪个节点下
+     * @param other 另一个树/森林
+     */
+    public void graft(N parent, AbstractTree<V, I, N> other) {
+        graft(parent, other, DuplicatePolicy.REJECT);
+    }
+
+    /**
+     * 将另一个树/森林嫁接到某个节点下 另一个树的根节点或所有顶层节点成为该节点的子节点
+     * 开销与另一个树的顶层节点数量及索引合并成正比 不会重新树化 嫁接后另一个树不应再使用
+     * @param parent 嫁接到哪个节点下
+     * @param other 另一个树/森林
+     * @param duplicatePolicy 唯一标识重复时的策略
+     */
+    public void graft(N parent, AbstractTree<V, I, N> other, DuplicatePolicy duplicatePolicy) {
+        if (parent == null) {
+            throw new IllegalArgumentException("Parent node can not be null");
+        }
+        if (index().get(parent.extractIdentifier()) != parent) {
+            throw new IllegalArgumentException("Parent node " + parent + " is not in this tree");
+        }
+        attach(parent, other, duplicatePolicy);
+    }
+
+    /**
+     * 合并另一个树/森林 另一个树的根节点或所有顶层节点成为当前森林的顶层节点
+     * 唯一标识重复时拒绝 合并后另一个树不应再使用
+     * @param other 另一个树/森林
+     */
+    public void merge(AbstractTree<V, I, N> other) {
+        merge(other, DuplicatePolicy.REJECT);
+    }
+
+    /**
+     * 合并另一个树/森林 另一个树的根节点或所有顶层节点成为当前森林的顶层节点
+     * 开销与另一个树的顶层节点数量及索引合并成正比 不会重新树化 合并后另一个树不应再使用
+     * @param other 另一个树/森林
+     * @param duplicatePolicy 唯一标识重复时的策略
+     */
+    public void merge(AbstractTree<V, I, N> other, DuplicatePolicy duplicatePolicy) {
+        if (type != Type.FOREST) {
+            throw new IllegalStateException("Only forest can merge other trees");
+        }
+        attach(null, other, duplicatePolicy);
+    }
+
+    /**
+     * 将另一个树/森林挂到某个节点下或顶层
+     * @param parent 挂到哪个节点下 为null时挂到顶层
+     * @param other 另一个树/森林
+     * @param duplicatePolicy 唯一标识重复时的策略
+     */
+    private void attach(N parent, AbstractTree<V, I, N> other, DuplicatePolicy duplicatePolicy) {
+        if (other == this) {
+            throw new IllegalArgumentException("Cannot attach a tree to itself");
+        }
+        List<N> incomingNodes = new ArrayList<>(other.type == Type.TREE ? Collections.singletonList(other.root) : other.topNodes);
+        for (N node : incomingNodes) {
+            if (!node.isTop()) {
+                throw new IllegalStateException("Node " + node + " still has a parent, detach it first");
+            }
+        }
+
+        // 找出重复的唯一标识
+        Map<I, N> existingIndex = index();
+        Map<I, N> incomingIndex = other.index();
+        Set<I> duplicates = new HashSet<>();
+        for (I identifier : incomingIndex.keySet()) {
+            if (existingIndex.containsKey(identifier)) {
+                duplicates.add(identifier);
+            }
+        }
+
+        if (!duplicates.isEmpty()) {
+            if (duplicatePolicy == null || duplicatePolicy == DuplicatePolicy.REJECT) {
+                throw new IllegalStateException("Found replicated nodes " + duplicates);
+            }
+            if (duplicatePolicy == DuplicatePolicy.KEEP_INCOMING) {
+                // 被替换的节点不能是挂载点及其祖先 否则挂上来的节点会随之脱离当前树
+                for (N node = parent; node != null; node = node.parent) {
+                    if (duplicates.contains(node.extractIdentifier())) {
+                        throw new IllegalStateException("Cannot replace node " + node + " because it is the attaching point or its ancestor");
+                    }
+                }
+            }
+            for (I identifier : duplicates) {
+                N existing = existingIndex.get(identifier);
+                N incoming = incomingIndex.get(identifier);
+                if (duplicatePolicy == DuplicatePolicy.KEEP_EXISTING) {
+                    replace(incoming, existing, duplicates, incomingNodes);
+                } else {
+                    replace(existing, incoming, duplicates, incomingNodes);
+                }
+            }
+        }
+
+        // 挂载
+        for (N node : incomingNodes) {
+            if (parent != null) {
+                parent.addChild(node);
+            } else {
+                topNodes.add(node);
+            }
+            node.resetLayer();
+        }
+
+        // 合并索引
+        for (Map.Entry<I, N> entry : incomingIndex.entrySet()) {
+            if (duplicatePolicy != DuplicatePolicy.KEEP_EXISTING || !duplicates.contains(entry.getKey())) {
+                existingIndex.put(entry.getKey(), entry.getValue());
+            }
+        }
+        size += other.cachedSize() - duplicates.size();
+
+        // 更新层级索引 有重复节点时节点的层级变化较复杂 直接重建
+        if (layers != null) {
+            if (duplicates.isEmpty()) {
+                for (N node : incomingNodes) {
+                    new SubTree<>(null, node).dft(this::addToLayerIndex);
+                }
+            } else {
+                buildLayerIndex();
+            }
+        }
+    }
+
+    /**
+     * 用一个节点替换另一个唯一标识相同的节点 被替换节点的子节点中唯一标识不重复的会转移到保留的节点下
+     * @param replaced 被替换的节点
+     * @param kept 保留的节点
+     * @param duplicates 重复的唯一标识
+     * @param incomingNodes 待挂载的节点
+     */
+    private void replace(N replaced, N kept, Set<I> duplicates, List<N> incomingNodes) {
+        if (replaced == kept) {
+            return;
+        }
+        if (replaced.children != null) {
+            for (N child : new ArrayList<>(replaced.children)) {
+                if (!duplicates.contains(child.extractIdentifier())) {
+                    kept.addChild(child);
+                    child.resetLayer();
+                }
+            }
+            replaced.children = null;
+        }
+        N replacedParent = replaced.parent;
+        if (replacedParent != null) {
+            if (replacedParent.children != null) {
+                replacedParent.invalidateSubtreeHash();
+                replacedParent.children.remove(replaced);
+            }
+            replaced.parent = null;
+        } else if (!incomingNodes.removeIf(x -> x == replaced) && topNodes != null) {
+            topNodes.remove(replaced);
+        }
+    }
+
+    /**
+     * 按条件过滤出视图 视图中保留满足条件的节点及其所有祖先节点 不复制节点也不改变节点关系
+     * 视图建立后原树结构不应再调整
+     * @param predicate 过滤条件
+     * @return 过滤后的视图
+     */
+    public FilteredTree<V, I, N> filter(Predicate<N> predicate) {
+        return new FilteredTree<>(this, predicate);
+    }
+
     /**
      * 获取树大小 也就是节点数量 使用构造后的节点数量 如果构造后不变 使用这个方法
      * @return 树大小
@@ -359,6 +927,98 @@ public abstract class AbstractTree<V, I, N extends AbstractTreeNode<V, I, N>> {
         return size;
     }
 
+    /**
+     * 按嵌套集合模型导出 每个节点导出一行 左值从1开始 森林的多个顶层节点连续编号
+     * 节点离开时才能确定右值 所以行按后序输出
+     * @param sink 接收一批行的函数
+     * @param batchSize 每批最多的行数
+     */
+    public void exportNestedSet(Consumer<List<NestedSetRow<I>>> sink, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        List<NestedSetRow<I>> batch = new ArrayList<>(batchSize);
+        int counter = 1;
+        // 栈中每一层对应一层节点
+        Deque<N> path = new ArrayDeque<>();
+        Deque<Integer> lefts = new ArrayDeque<>();
+        Deque<Iterator<N>> stack = new ArrayDeque<>();
+        stack.push(new ArrayList<>(startNodes()).iterator());
+        while (!stack.isEmpty()) {
+            Iterator<N> iterator = stack.peek();
+            if (iterator.hasNext()) {
+                N current = iterator.next();
+                path.push(current);
+                lefts.push(counter++);
+                Collection<N> children = children(current);
+                stack.push(children == null ? Collections.<N>emptyIterator() : new ArrayList<>(children).iterator());
+                continue;
+            }
+            stack.pop();
+            if (path.isEmpty()) {
+                break;
+            }
+            N current = path.pop();
+            batch.add(new NestedSetRow<>(current.extractIdentifier(), lefts.pop(), counter++, path.size()));
+            if (batch.size() >= batchSize) {
+                sink.accept(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            sink.accept(batch);
+        }
+    }
+
+    /**
+     * 按闭包表模型导出 每对祖先和后代导出一行 每个节点与自身也导出一行
+     * @param sink 接收一批行的函数
+     * @param batchSize 每批最多的行数
+     */
+    public void exportClosureTable(Consumer<List<ClosureTableRow<I>>> sink, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        List<ClosureTableRow<I>> batch = new ArrayList<>(batchSize);
+        // 从顶层到当前节点的唯一标识
+        List<I> path = new ArrayList<>();
+        Deque<Iterator<N>> stack = new ArrayDeque<>();
+        stack.push(new ArrayList<>(startNodes()).iterator());
+        while (!stack.isEmpty()) {
+            Iterator<N> iterator = stack.peek();
+            if (!iterator.hasNext()) {
+                stack.pop();
+                if (!path.isEmpty()) {
+                    path.remove(path.size() - 1);
+                }
+                continue;
+            }
+            N current = iterator.next();
+            I identifier = current.extractIdentifier();
+            path.add(identifier);
+            for (int i = 0, depth = path.size() - 1; i <= depth; i++) {
+                batch.add(new ClosureTableRow<>(path.get(i), identifier, depth - i));
+                if (batch.size() >= batchSize) {
+                    sink.accept(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            Collection<N> children = children(current);
+            stack.push(children == null ? Collections.<N>emptyIterator() : new ArrayList<>(children).iterator());
+        }
+        if (!batch.isEmpty()) {
+            sink.accept(batch);
+        }
+    }
+
+    /**
+     * 调整节点数量 子类在树化后增删节点时调用
+     * @param delta 增加的数量 减少时为负数
+     */
+    protected void adjustSize(int delta) {
+        size += delta;
+    }
+
     /**
      * 获取树大小 也就是节点数量 如果构造后还有调整 使用这个方法获取实时数量
      * @return 树大小
@@ -371,6 +1031,22 @@ public abstract class AbstractTree<V, I, N extends AbstractTreeNode<V, I, N>> {
         return temp[0];
     }
 
+    /**
+     * 获取整个树的指纹 树为根节点的子树指纹 森林由所有顶层节点的子树指纹组合而成
+     * @return 树的指纹
+     */
+    public long fingerprint() {
+        if (type == Type.TREE) {
+            return root.getSubtreeHash();
+        }
+        boolean ordered = isTopNodesOrdered();
+        long hash = 0;
+        for (N topNode : topNodes) {
+            hash = ordered ? hash * 31 + topNode.getSubtreeHash() : hash + AbstractTreeNode.mix(topNode.getSubtreeHash());
+        }
+        return hash;
+    }
+
     /**
      * 输出树形结构
      * @param printer 输出函数
@@ -381,7 +1057,7 @@ public abstract class AbstractTree<V, I, N extends AbstractTreeNode<V, I, N>> {
     public void print(Consumer<String> printer, Function<N, String> formatter, String firstPrefix, String otherPrefix) {
         dft(x -> {
             StringBuilder stringBuilder = new StringBuilder();
-            for (int i = 0, len = x.getLayer(); i < len; ) {
+            for (int i = 0, len = layerOf(x); i < len; ) {
                 stringBuilder.append(firstPrefix != null ? firstPrefix : otherPrefix);
                 while (++i < len) {
                     stringBuilder.append(otherPrefix);
@@ -455,11 +1131,188 @@ public abstract class AbstractTree<V, I, N extends AbstractTreeNode<V, I, N>> {
     }
 
     /**
-     * 子节点的初始化方法 默认使用LinkedList
+     * 获取唯一标识索引 不存在时通过遍历建立
+     * @return 唯一标识索引
+     */
+    protected Map<I, N> index() {
+        if (index == null) {
+            Map<I, N> map = new HashMap<>();
+            dft(x -> {
+                map.put(x.extractIdentifier(), x);
+            });
+            index = map;
+        }
+        return index;
+    }
+
+    /**
+     * 将节点加入唯一标识索引 索引未建立时忽略
+     * @param node 节点
+     */
+    protected void indexNode(N node) {
+        if (index != null) {
+            index.put(node.extractIdentifier(), node);
+        }
+        if (layers != null) {
+            addToLayerIndex(node);
+        }
+    }
+
+    /**
+     * 将节点从唯一标识索引中移除 索引未建立时忽略
+     * @param node 节点
+     */
+    protected void unindexNode(N node) {
+        if (index != null) {
+            index.remove(node.extractIdentifier(), node);
+        }
+        if (layers != null) {
+            removeFromLayerIndex(node);
+        }
+    }
+
+    /**
+     * 建立层级索引 从顶层逐层向下 同时缓存每个节点的层数
+     */
+    private void buildLayerIndex() {
+        layers = new ArrayList<>();
+        List<N> currentLayer = new ArrayList<>(type == Type.TREE ? Collections.singletonList(root) : topNodes);
+        for (int layer = 0; !currentLayer.isEmpty(); layer++) {
+            Set<N> set = new LinkedHashSet<>();
+            List<N> nextLayer = new ArrayList<>();
+            for (N node : currentLayer) {
+                node.setLayer(layer);
+                set.add(node);
+                if (node.children != null) {
+                    nextLayer.addAll(node.children);
+                }
+            }
+            layers.add(set);
+            currentLayer = nextLayer;
+        }
+    }
+
+    /**
+     * 将节点加入层级索引
+     * @param node 已挂到树上的节点
+     */
+    private void addToLayerIndex(N node) {
+        int layer = node.getLayer();
+        while (layers.size() <= layer) {
+            layers.add(new LinkedHashSet<>());
+        }
+        layers.get(layer).add(node);
+    }
+
+    /**
+     * 将节点从层级索引中移除
+     * @param node 还在树上的节点
+     */
+    private void removeFromLayerIndex(N node) {
+        int layer = node.getLayer();
+        if (layer < layers.size()) {
+            layers.get(layer).remove(node);
+        }
+        // 去掉末尾的空层
+        while (!layers.isEmpty() && layers.get(layers.size() - 1).isEmpty()) {
+            layers.remove(layers.size() - 1);
+        }
+    }
+
+    /**
+     * 获取某一层的所有节点 有层级索引时为O(1) 否则只遍历到该层
+     * @param layer 层数 顶层为0
+     * @return 该层的所有节点 只读
+     */
+    public Collection<N> nodesAtLayer(int layer) {
+        if (layer < 0) {
+            return Collections.emptyList();
+        }
+        if (layers != null) {
+            return layer < layers.size() ? Collections.unmodifiableCollection(layers.get(layer)) : Collections.emptyList();
+        }
+        return flat(x -> layerOf(x) == layer, TraversingLimit.depth(layer));
+    }
+
+    /**
+     * 获取某一层的节点数量 有层级索引时为O(1) 否则只遍历到该层
+     * @param layer 层数 顶层为0
+     * @return 该层的节点数量
+     */
+    public int countAtLayer(int layer) {
+        return nodesAtLayer(layer).size();
+    }
+
+    /**
+     * 获取层数 有层级索引时为O(1) 否则需要遍历整个树
+     * @return 层数 即最深节点的层数+1
+     */
+    public int layerCount() {
+        if (layers != null) {
+            return layers.size();
+        }
+        int[] max = new int[]{-1};
+        dft(x -> {
+            max[0] = Math.max(max[0], layerOf(x));
+        });
+        return max[0] + 1;
+    }
+
+    /**
+     * 是否维护层级索引 子类可以重写该方法开启 开启后树化时会多一次逐层遍历 结构调整时同步更新
+     * @return 是否维护层级索引
+     */
+    protected boolean isLayerIndexed() {
+        return false;
+    }
+
+    /**
+     * 获取遍历整个树时的起始节点
+     * @return 树为根节点 森林为所有顶层节点
+     */
+    protected Collection<N> startNodes() {
+        return type == Type.TREE ? Collections.singletonList(root) : topNodes;
+    }
+
+    /**
+     * 限制深度的遍历中 节点因超出深度而未访问其子节点时调用 子类可以重写该方法 例如预加载子节点
+     * @param node 节点
+     */
+    protected void pruned(N node) {
+    }
+
+    /**
+     * 获取输出时节点的层级 视图可以重写该方法改变层级的起点
+     * @param node 节点
+     * @return 层级
+     */
+    protected int layerOf(N node) {
+        return node.getLayer();
+    }
+
+    /**
+     * 获取遍历时某个节点的子节点 视图可以重写该方法改变树的形态
+     * @param node 节点
+     * @return 子节点 叶子节点可以返回null
+     */
+    protected Collection<N> children(N node) {
+        return node.getChildren();
+    }
+
+    /**
+     * 顶层节点的初始化方法 默认使用IndexedSet 保持插入顺序并支持按下标访问
      * @return 初始化方法
      */
     protected Set<N> initTopNodes() {
-        return new LinkedHashSet<>();
+        return new IndexedSet<>();
+    }
+
+    /**
+     * 顶层节点是否有序 有序时森林的指纹与顶层节点顺序相关
+     * @return 顶层节点是否有序
+     */
+    protected boolean isTopNodesOrdered() {
+        return false;
     }
 
     public Type getType() {
@@ -474,6 +1327,151 @@ public abstract class AbstractTree<V, I, N extends AbstractTreeNode<V, I, N>> {
                 .toString();
     }
 
+    /**
+     * 异步遍历 待访问的节点按深度优先的顺序排列 并发数未满时依次取出访问
+     * 同一时间只有一个线程调度 访问在当前线程同步完成时只标记需要重新调度 由正在调度的线程循环处理 避免递归调用导致栈溢出
+     */
+    private class AsyncTraversal {
+
+        private final Function<N, CompletableFuture<TraversingAction>> visitor;
+
+        private final int parallelism;
+
+        private final Executor executor;
+
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        /**
+         * 待访问的节点
+         */
+        private final Deque<N> pendingNodes = new ArrayDeque<>();
+
+        /**
+         * 正在访问的节点数量
+         */
+        private int running;
+
+        /**
+         * 是否不再访问新的节点
+         */
+        private boolean stopped;
+
+        /**
+         * 访问函数抛出的第一个异常
+         */
+        private Throwable error;
+
+        /**
+         * 是否有线程正在调度
+         */
+        private boolean scheduling;
+
+        /**
+         * 调度期间是否有访问结束 需要再次调度
+         */
+        private boolean rescheduled;
+
+        private AsyncTraversal(Function<N, CompletableFuture<TraversingAction>> visitor, int parallelism, Executor executor) {
+            this.visitor = visitor;
+            this.parallelism = parallelism;
+            this.executor = executor;
+        }
+
+        private CompletableFuture<Void> start(Collection<N> fromNodes) {
+            synchronized (this) {
+                pendingNodes.addAll(fromNodes);
+            }
+            schedule();
+            return result;
+        }
+
+        /**
+         * 并发数未满时取出待访问的节点访问 全部结束后完成结果
+         */
+        private void schedule() {
+            synchronized (this) {
+                if (scheduling) {
+                    rescheduled = true;
+                    return;
+                }
+                scheduling = true;
+            }
+            boolean finished;
+            while (true) {
+                List<N> launching = new ArrayList<>();
+                synchronized (this) {
+                    while (!stopped && running < parallelism && !pendingNodes.isEmpty()) {
+                        launching.add(pendingNodes.pollFirst());
+                        running++;
+                    }
+                    if (launching.isEmpty() && !rescheduled) {
+                        finished = running == 0 && (stopped || pendingNodes.isEmpty());
+                        scheduling = false;
+                        break;
+                    }
+                    rescheduled = false;
+                }
+                launching.forEach(this::visit);
+            }
+            if (finished) {
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(null);
+                }
+            }
+        }
+
+        private void visit(N node) {
+            CompletableFuture<TraversingAction> future;
+            try {
+                future = CompletableFuture.supplyAsync(() -> visitor.apply(node), executor).thenCompose(Function.identity());
+            } catch (RuntimeException e) {
+                future = new CompletableFuture<>();
+                future.completeExceptionally(e);
+            }
+            future.whenComplete((action, e) -> {
+                synchronized (this) {
+                    running--;
+                    if (e != null) {
+                        if (error == null) {
+                            error = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                        }
+                        stopped = true;
+                    } else if (action == TraversingAction.STOP) {
+                        stopped = true;
+                    } else if (action != TraversingAction.SKIP && !stopped) {
+                        Collection<N> children = children(node);
+                        if (children != null && !children.isEmpty()) {
+                            // 子节点按顺序放到最前面 保证优先访问更深的节点
+                            List<N> list = new ArrayList<>(children);
+                            for (int i = list.size() - 1; i >= 0; i--) {
+                                pendingNodes.addFirst(list.get(i));
+                            }
+                        }
+                    }
+                }
+                schedule();
+            });
+        }
+    }
+
+    /**
+     * 异步遍历默认使用的线程池 优先使用虚拟线程
+     */
+    private static class AsyncExecutorHolder {
+
+        private static final Executor EXECUTOR = createExecutor();
+
+        private static Executor createExecutor() {
+            try {
+                return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                return ForkJoinPool.commonPool();
+            }
+        }
+    }
+
     /**
      * 树的类型
      */
@@ -512,6 +1510,99 @@ public abstract class AbstractTree<V, I, N extends AbstractTreeNode<V, I, N>> {
         ;
     }
 
+    /**
+     * 嫁接或合并时唯一标识重复的策略
+     * 重复的节点只保留一个 另一个节点的子节点中唯一标识不重复的会转移到保留的节点下
+     */
+    public enum DuplicatePolicy {
+
+        /**
+         * 拒绝（抛出异常）
+         */
+        REJECT,
+
+        /**
+         * 保留已有的节点
+         */
+        KEEP_EXISTING,
+
+        /**
+         * 保留新加入的节点 已有的节点被移除
+         */
+        KEEP_INCOMING,
+        ;
+    }
+
+    /**
+     * 遍历限制
+     */
+    public static final class TraversingLimit {
+
+        /**
+         * 不限制
+         */
+        public static final TraversingLimit NONE = new TraversingLimit(-1, -1);
+
+        /**
+         * 最大深度 起始节点深度为0 小于0表示不限制
+         */
+        private final int maxDepth;
+
+        /**
+         * 最多访问的节点数量 小于0表示不限制
+         */
+        private final int maxVisits;
+
+        private TraversingLimit(int maxDepth, int maxVisits) {
+            this.maxDepth = maxDepth;
+            this.maxVisits = maxVisits;
+        }
+
+        /**
+         * 限制深度 例如只遍历前3层时深度为2
+         * @param maxDepth 最大深度 起始节点深度为0 小于0表示不限制
+         * @return 遍历限制
+         */
+        public static TraversingLimit depth(int maxDepth) {
+            return new TraversingLimit(maxDepth, -1);
+        }
+
+        /**
+         * 限制访问数量
+         * @param maxVisits 最多访问的节点数量 小于0表示不限制
+         * @return 遍历限制
+         */
+        public static TraversingLimit visits(int maxVisits) {
+            return new TraversingLimit(-1, maxVisits);
+        }
+
+        /**
+         * 同时限制深度和访问数量
+         * @param maxDepth 最大深度 起始节点深度为0 小于0表示不限制
+         * @param maxVisits 最多访问的节点数量 小于0表示不限制
+         * @return 遍历限制
+         */
+        public static TraversingLimit of(int maxDepth, int maxVisits) {
+            return new TraversingLimit(maxDepth, maxVisits);
+        }
+
+        public int getMaxDepth() {
+            return maxDepth;
+        }
+
+        public int getMaxVisits() {
+            return maxVisits;
+        }
+
+        @Override
+        public String toString() {
+            return new StringJoiner(", ", TraversingLimit.class.getSimpleName() + "[", "]")
+                    .add("maxDepth=" + maxDepth)
+                    .add("maxVisits=" + maxVisits)
+                    .toString();
+        }
+    }
+
     /**
      * 遍历动作
      */
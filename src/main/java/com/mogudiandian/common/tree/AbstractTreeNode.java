@@ -34,6 +34,11 @@ public abstract class AbstractTreeNode<V, I, N extends AbstractTreeNode<V, I, N>
      */
     protected Set<N> children;
 
+    /**
+     * 子树指纹 按需自底向上计算 为null表示尚未计算或已失效
+     */
+    private Long subtreeHash;
+
     /**
      * 构造节点
      * @param value 节点值
@@ -52,6 +57,7 @@ public abstract class AbstractTreeNode<V, I, N extends AbstractTreeNode<V, I, N>
         }
         children.add(node);
         node.parent = (N) this;
+        invalidateSubtreeHash();
     }
 
     /**
@@ -59,9 +65,11 @@ public abstract class AbstractTreeNode<V, I, N extends AbstractTreeNode<V, I, N>
      */
     protected void isolate() {
         if (parent != null && parent.children != null) {
+            parent.invalidateSubtreeHash();
             parent.children.remove(this);
             parent = null;
         }
+        invalidateSubtreeHash();
         if (children != null) {
             children.forEach(child -> child.parent = null);
             children.clear();
@@ -85,6 +93,28 @@ public abstract class AbstractTreeNode<V, I, N extends AbstractTreeNode<V, I, N>
         return layer;
     }
 
+    /**
+     * 设置层数 树化时已知层数的情况下使用 避免递归计算
+     * @param layer 层数
+     */
+    void setLayer(int layer) {
+        this.layer = layer;
+    }
+
+    /**
+     * 清除子树中缓存的层数 节点调整位置后需要调用
+     */
+    void resetLayer() {
+        // 某个节点的层数未计算时 其后代节点的层数也一定未计算 所以遇到null就可以停止
+        if (layer == null) {
+            return;
+        }
+        layer = null;
+        if (children != null) {
+            children.forEach(AbstractTreeNode::resetLayer);
+        }
+    }
+
     /**
      * 获取路径 需要树化后才能调用
      * @param nameFunction 获取当前节点路径名的函数
@@ -108,6 +138,83 @@ public abstract class AbstractTreeNode<V, I, N extends AbstractTreeNode<V, I, N>
         return getPath(nameFunction, Character.toString(separator));
     }
 
+    /**
+     * 获取子树指纹 由当前节点值的哈希和所有子节点的子树指纹自底向上计算 结果会被缓存
+     * 子节点有序时指纹与子节点顺序相关 否则与顺序无关
+     * 两次获取的指纹相同 可认为子树没有变化 可用于缓存键或变更检测
+     * @return 子树指纹
+     */
+    public long getSubtreeHash() {
+        if (subtreeHash != null) {
+            return subtreeHash;
+        }
+        // 用显式栈做后序遍历 避免深树递归栈溢出 已缓存指纹的子树直接跳过
+        Deque<AbstractTreeNode<V, I, N>> stack = new ArrayDeque<>();
+        stack.push(this);
+        while (!stack.isEmpty()) {
+            AbstractTreeNode<V, I, N> node = stack.peek();
+            if (node.subtreeHash != null) {
+                stack.pop();
+                continue;
+            }
+            boolean pending = false;
+            if (node.children != null) {
+                for (AbstractTreeNode<V, I, N> child : node.children) {
+                    if (child.subtreeHash == null) {
+                        stack.push(child);
+                        pending = true;
+                    }
+                }
+            }
+            // 子节点的指纹都已计算 才能计算当前节点
+            if (!pending) {
+                node.subtreeHash = node.computeSubtreeHash();
+                stack.pop();
+            }
+        }
+        return subtreeHash;
+    }
+
+    /**
+     * 由节点值的哈希和子节点已缓存的子树指纹计算当前节点的子树指纹
+     * @return 子树指纹
+     */
+    private long computeSubtreeHash() {
+        long hash = mix(hashValue());
+        if (children != null && !children.isEmpty()) {
+            boolean ordered = isChildrenOrdered();
+            long childrenHash = 0;
+            for (AbstractTreeNode<V, I, N> child : children) {
+                long childHash = child.subtreeHash;
+                childrenHash = ordered ? childrenHash * 31 + childHash : childrenHash + mix(childHash);
+            }
+            hash = mix(hash * 31 + childrenHash);
+        }
+        return hash;
+    }
+
+    /**
+     * 使当前节点到顶层节点路径上的子树指纹失效 下次获取时只重新计算这条路径
+     * 节点值内部发生变化时需要手动调用
+     */
+    public void invalidateSubtreeHash() {
+        // 某个节点的指纹未计算时 其祖先节点的指纹也一定未计算 所以遇到null就可以停止
+        for (AbstractTreeNode<V, I, N> node = this; node != null && node.subtreeHash != null; node = node.parent) {
+            node.subtreeHash = null;
+        }
+    }
+
+    /**
+     * 64位哈希的混淆函数 使低位变化也能扩散到所有位
+     * @param hash 原始哈希
+     * @return 混淆后的哈希
+     */
+    static long mix(long hash) {
+        hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+        hash = (hash ^ (hash >>> 33)) * 0xc4ceb3fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+
     /**
      * 获取节点值
      * @return 节点值
@@ -132,6 +239,82 @@ public abstract class AbstractTreeNode<V, I, N extends AbstractTreeNode<V, I, N>
         return children;
     }
 
+    /**
+     * 获取子节点数量
+     * @return 子节点数量 叶子节点返回0
+     */
+    public int childCount() {
+        return children == null ? 0 : children.size();
+    }
+
+    /**
+     * 按下标获取子节点 子节点为IndexedSet时为O(1)
+     * @param index 下标
+     * @return 子节点
+     */
+    public N getChild(int index) {
+        if (index < 0 || index >= childCount()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + childCount());
+        }
+        if (children instanceof IndexedSet) {
+            return ((IndexedSet<N>) children).get(index);
+        }
+        Iterator<N> iterator = children.iterator();
+        for (int i = 0; i < index; i++) {
+            iterator.next();
+        }
+        return iterator.next();
+    }
+
+    /**
+     * 分页获取子节点 子节点为IndexedSet时不需要跳过前面的子节点
+     * @param offset 起始下标
+     * @param limit 最多获取的数量
+     * @return 只读的子节点列表 超出范围的部分会被忽略
+     */
+    public List<N> getChildren(int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset and limit can not be negative");
+        }
+        if (children == null) {
+            return Collections.emptyList();
+        }
+        if (children instanceof IndexedSet) {
+            return ((IndexedSet<N>) children).subList(offset, limit);
+        }
+        List<N> list = new ArrayList<>();
+        Iterator<N> iterator = children.iterator();
+        for (int i = 0; i < offset && iterator.hasNext(); i++) {
+            iterator.next();
+        }
+        while (list.size() < limit && iterator.hasNext()) {
+            list.add(iterator.next());
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * 获取子节点的下标 子节点为IndexedSet时为O(1)
+     * @param child 子节点
+     * @return 下标 不是当前节点的子节点返回-1
+     */
+    public int indexOf(N child) {
+        if (children == null) {
+            return -1;
+        }
+        if (children instanceof IndexedSet) {
+            return ((IndexedSet<N>) children).indexOf(child);
+        }
+        int index = 0;
+        for (N node : children) {
+            if (node.equals(child)) {
+                return index;
+            }
+            index++;
+        }
+        return -1;
+    }
+
     /**
      * 是否顶层节点
      * @return 是否顶层节点
@@ -182,11 +365,11 @@ public abstract class AbstractTreeNode<V, I, N extends AbstractTreeNode<V, I, N>
     }
 
     /**
-     * 子节点的初始化方法 默认使用LinkedList
+     * 子节点的初始化方法 默认使用IndexedSet 保持插入顺序并支持按下标访问
      * @return 初始化方法
      */
     protected Set<N> initChildren() {
-        return new LinkedHashSet<>();
+        return new IndexedSet<>();
     }
 
     /**
@@ -197,6 +380,22 @@ public abstract class AbstractTreeNode<V, I, N extends AbstractTreeNode<V, I, N>
         return true;
     }
 
+    /**
+     * 节点值的哈希 用于计算子树指纹 默认使用值对象的hashCode 如果值对象没有实现hashCode或不够精确 可以重写该方法
+     * @return 节点值的哈希
+     */
+    protected long hashValue() {
+        return Objects.hashCode(value);
+    }
+
+    /**
+     * 子节点是否有序 有序时子树指纹与子节点顺序相关
+     * @return 子节点是否有序
+     */
+    protected boolean isChildrenOrdered() {
+        return false;
+    }
+
     /**
      * 是否为顶节点
      * @return 是否为顶节点
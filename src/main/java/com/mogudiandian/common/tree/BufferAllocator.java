@@ -0,0 +1,60 @@
+package com.mogudiandian.common.tree;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * 缓冲区分配器 用于堆外树分配保存结构和节点值的缓冲区
+ * 分配的缓冲区内容必须全部为0
+ *
+ * @author Joshua Sun
+ * @since 2023/7/24
+ */
+@FunctionalInterface
+public interface BufferAllocator {
+
+    /**
+     * 分配缓冲区
+     * @param capacity 容量
+     * @return 缓冲区
+     */
+    ByteBuffer allocate(int capacity);
+
+    /**
+     * 直接内存分配器 随缓冲区被GC回收而释放
+     * @return 分配器
+     */
+    static BufferAllocator direct() {
+        return ByteBuffer::allocateDirect;
+    }
+
+    /**
+     * 内存映射文件分配器 每个缓冲区对应目录下的一个临时文件 由操作系统按需换入换出 适合超过物理内存的树
+     * 文件映射后即删除（不支持时在JVM退出时删除） 随缓冲区被GC回收而释放
+     * @param directory 临时文件所在的目录
+     * @return 分配器
+     */
+    static BufferAllocator mapped(File directory) {
+        return capacity -> {
+            try {
+                File file = File.createTempFile("tree-", ".dat", directory);
+                try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+                    randomAccessFile.setLength(capacity);
+                    MappedByteBuffer buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+                    if (!file.delete()) {
+                        file.deleteOnExit();
+                    }
+                    return buffer;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+}
@@ -0,0 +1,23 @@
+package com.mogudiandian.common.tree;
+
+import java.util.Collection;
+
+/**
+ * 子节点加载器 用于懒加载树按需加载子节点
+ *
+ * @param <I> 节点唯一标识类型
+ * @param <N> 节点类型
+ * @author Joshua Sun
+ * @since 2023/7/24
+ */
+@FunctionalInterface
+public interface ChildLoader<I, N extends AbstractTreeNode<?, I, N>> {
+
+    /**
+     * 批量加载子节点 返回的节点通过父节点唯一标识归到对应的父节点下
+     * @param parentIdentifiers 父节点的唯一标识
+     * @return 这些父节点的所有子节点 没有则返回空集合
+     */
+    Collection<N> load(Collection<I> parentIdentifiers);
+
+}
@@ -0,0 +1,114 @@
+package com.mogudiandian.common.tree;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 分块的缓冲区 突破单个ByteBuffer 2G的容量限制 按需逐块分配
+ * 地址为long 调用方保证一次读写不会跨块
+ *
+ * @author Joshua Sun
+ * @since 2023/7/24
+ */
+final class ChunkedBuffer {
+
+    /**
+     * 分配器
+     */
+    private final BufferAllocator allocator;
+
+    /**
+     * 每块的容量
+     */
+    private final int chunkSize;
+
+    /**
+     * 已分配的块
+     */
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+
+    ChunkedBuffer(BufferAllocator allocator, int chunkSize) {
+        this.allocator = allocator;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * 保证容量 不足时分配新的块
+     * @param capacity 需要的容量
+     */
+    void ensureCapacity(long capacity) {
+        while (capacity() < capacity) {
+            chunks.add(allocator.allocate(chunkSize).order(ByteOrder.nativeOrder()));
+        }
+    }
+
+    /**
+     * 已分配的容量
+     * @return 容量
+     */
+    long capacity() {
+        return (long) chunks.size() * chunkSize;
+    }
+
+    int chunkSize() {
+        return chunkSize;
+    }
+
+    private ByteBuffer chunk(long address) {
+        return chunks.get((int) (address / chunkSize));
+    }
+
+    private int offset(long address) {
+        return (int) (address % chunkSize);
+    }
+
+    long getLong(long address) {
+        return chunk(address).getLong(offset(address));
+    }
+
+    void putLong(long address, long value) {
+        chunk(address).putLong(offset(address), value);
+    }
+
+    int getInt(long address) {
+        return chunk(address).getInt(offset(address));
+    }
+
+    void putInt(long address, int value) {
+        chunk(address).putInt(offset(address), value);
+    }
+
+    /**
+     * 写入字节
+     * @param address 地址
+     * @param bytes 字节
+     */
+    void put(long address, byte[] bytes) {
+        ByteBuffer buffer = chunk(address).duplicate();
+        buffer.position(offset(address));
+        buffer.put(bytes);
+    }
+
+    /**
+     * 获取一段只读的缓冲区 不复制数据
+     * @param address 地址
+     * @param length 长度
+     * @return 缓冲区
+     */
+    ByteBuffer slice(long address, int length) {
+        ByteBuffer buffer = chunk(address).asReadOnlyBuffer();
+        int offset = offset(address);
+        buffer.limit(offset + length);
+        buffer.position(offset);
+        return buffer.slice();
+    }
+
+    /**
+     * 释放所有块的引用 由GC回收
+     */
+    void clear() {
+        chunks.clear();
+    }
+}
@@ -0,0 +1,56 @@
+package com.mogudiandian.common.tree;
+
+import java.util.StringJoiner;
+
+/**
+ * 闭包表模型的一行 用于将树保存到关系型数据库
+ * 每对祖先和后代都有一行 每个节点与自身也有一行 距离为0
+ *
+ * @param <I> 节点唯一标识类型
+ * @author Joshua Sun
+ * @since 2023/7/24
+ */
+public final class ClosureTableRow<I> {
+
+    /**
+     * 祖先节点唯一标识
+     */
+    private final I ancestor;
+
+    /**
+     * 后代节点唯一标识
+     */
+    private final I descendant;
+
+    /**
+     * 距离 即相差的层数
+     */
+    private final int distance;
+
+    public ClosureTableRow(I ancestor, I descendant, int distance) {
+        this.ancestor = ancestor;
+        this.descendant = descendant;
+        this.distance = distance;
+    }
+
+    public I getAncestor() {
+        return ancestor;
+    }
+
+    public I getDescendant() {
+        return descendant;
+    }
+
+    public int getDistance() {
+        return distance;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", ClosureTableRow.class.getSimpleName() + "[", "]")
+                .add("ancestor=" + ancestor)
+                .add("descendant=" + descendant)
+                .add("distance=" + distance)
+                .toString();
+    }
+}
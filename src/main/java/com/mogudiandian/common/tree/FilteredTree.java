@@ -0,0 +1,271 @@
+package com.mogudiandian.common.tree;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 过滤后的树视图 保留满足条件的节点及其所有祖先节点
+ * 节点不会被复制 父子关系也不会改变 遍历、扁平化、输出等方法与原树一致
+ * 视图是只读的 摘除、嫁接、合并会抛出异常 被过滤的树修改后应重新过滤
+ * 非线程安全
+ *
+ * @param <V> 节点值类型
+ * @param <I> 节点唯一标识类型
+ * @param <N> 节点类型
+ * @author Joshua Sun
+ * @since 2023/7/24
+ */
+public class FilteredTree<V, I, N extends AbstractTreeNode<V, I, N>> extends AbstractTree<V, I, N> {
+
+    /**
+     * 被过滤的树
+     */
+    private final AbstractTree<V, I, N> source;
+
+    /**
+     * 当前的过滤条件
+     */
+    private Predicate<N> predicate;
+
+    /**
+     * 视图中节点的标记 key为视图中的节点（满足条件的节点或其祖先节点）
+     */
+    private Map<N, Mark<N>> marks;
+
+    /**
+     * 构造视图 一次遍历即可计算出所有节点的标记
+     * @param source 被过滤的树
+     * @param predicate 过滤条件
+     */
+    public FilteredTree(AbstractTree<V, I, N> source, Predicate<N> predicate) {
+        super(source.type, source.root, source.topNodes, 0);
+        this.source = source;
+        this.predicate = predicate;
+        this.marks = new IdentityHashMap<>();
+        for (N node : super.startNodes()) {
+            mark(node, source::children, predicate);
+        }
+    }
+
+    /**
+     * 收窄过滤条件 新条件为当前条件与参数条件同时成立
+     * 条件收窄后视图只会变小 所以只需要重新计算当前视图中的节点 并且不满足原条件的节点不会再次判断
+     * @param narrower 追加的过滤条件
+     * @return 当前视图
+     */
+    public FilteredTree<V, I, N> narrow(Predicate<N> narrower) {
+        Map<N, Mark<N>> previous = this.marks;
+        this.predicate = predicate.and(narrower);
+        this.marks = new IdentityHashMap<>();
+        for (N node : super.startNodes()) {
+            if (previous.containsKey(node)) {
+                mark(node, x -> previous.get(x).children, x -> previous.get(x).matched && narrower.test(x));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * 标记节点及其子树 后序遍历 子节点都标记完后再决定节点是否在视图中
+     * 使用显式的栈 很深的树也不会栈溢出 过滤条件仍按先序的顺序判断
+     * @param node 节点
+     * @param childrenFunction 获取子节点的函数
+     * @param predicate 过滤条件
+     */
+    private void mark(N node, Function<N, Collection<N>> childrenFunction, Predicate<N> predicate) {
+        Deque<Frame<N>> stack = new ArrayDeque<>();
+        stack.push(new Frame<>(node, predicate.test(node), childrenFunction.apply(node)));
+        while (!stack.isEmpty()) {
+            Frame<N> frame = stack.peek();
+            if (frame.children != null && frame.children.hasNext()) {
+                N child = frame.children.next();
+                stack.push(new Frame<>(child, predicate.test(child), childrenFunction.apply(child)));
+                continue;
+            }
+            stack.pop();
+            if (frame.matched || frame.visibleChildren != null) {
+                marks.put(frame.node, new Mark<>(frame.matched, frame.visibleChildren));
+                Frame<N> parent = stack.peek();
+                if (parent != null) {
+                    if (parent.visibleChildren == null) {
+                        parent.visibleChildren = new ArrayList<>();
+                    }
+                    parent.visibleChildren.add(frame.node);
+                }
+            }
+        }
+    }
+
+    /**
+     * 节点是否满足过滤条件
+     * @param node 节点
+     * @return 是否满足过滤条件 祖先节点因后代满足条件而保留时返回false
+     */
+    public boolean isMatched(N node) {
+        Mark<N> mark = marks.get(node);
+        return mark != null && mark.matched;
+    }
+
+    /**
+     * 节点是否在视图中
+     * @param node 节点
+     * @return 是否在视图中 满足过滤条件的节点及其祖先节点都在视图中
+     */
+    public boolean isVisible(N node) {
+        return marks.containsKey(node);
+    }
+
+    /**
+     * 获取当前的过滤条件
+     * @return 过滤条件
+     */
+    public Predicate<N> getPredicate() {
+        return predicate;
+    }
+
+    /**
+     * 获取被过滤的树
+     * @return 被过滤的树
+     */
+    public AbstractTree<V, I, N> getSource() {
+        return source;
+    }
+
+    /**
+     * 限制深度和访问数量的深度优先遍历 起始节点中不在视图中的会被忽略
+     * @param fromNodes 要从哪些节点开始遍历
+     * @param limit 遍历限制
+     * @param visitor 访问到节点执行的函数 并返回是否遍历动作
+     */
+    @Override
+    public void dft(Collection<N> fromNodes, TraversingLimit limit, Function<N, TraversingAction> visitor) {
+        List<N> visibleNodes = new ArrayList<>(fromNodes.size());
+        for (N node : fromNodes) {
+            if (marks.containsKey(node)) {
+                visibleNodes.add(node);
+            }
+        }
+        super.dft(visibleNodes, limit, visitor);
+    }
+
+    /**
+     * 根据唯一标识查找节点 使用被过滤的树的索引
+     * @param identifier 唯一标识
+     * @return 查找到的节点 不在视图中则返回null
+     */
+    @Override
+    public N find(I identifier) {
+        N node = source.find(identifier);
+        return node != null && marks.containsKey(node) ? node : null;
+    }
+
+    /**
+     * 视图是只读的 需要摘除时应在被过滤的树上操作 再重新过滤
+     * @param node 子树的根节点
+     * @return 不会返回
+     */
+    @Override
+    public SubTree<V, I, N> detach(N node) {
+        throw new IllegalStateException("Filtered tree is read-only, detach from the source tree instead");
+    }
+
+    /**
+     * 视图是只读的 需要嫁接时应在被过滤的树上操作 再重新过滤
+     * @param parent 嫁接到哪个节点下
+     * @param other 另一个树/森林
+     * @param duplicatePolicy 唯一标识重复时的策略
+     */
+    @Override
+    public void graft(N parent, AbstractTree<V, I, N> other, DuplicatePolicy duplicatePolicy) {
+        throw new IllegalStateException("Filtered tree is read-only, graft onto the source tree instead");
+    }
+
+    /**
+     * 视图是只读的 需要合并时应在被过滤的树上操作 再重新过滤
+     * @param other 另一个树/森林
+     * @param duplicatePolicy 唯一标识重复时的策略
+     */
+    @Override
+    public void merge(AbstractTree<V, I, N> other, DuplicatePolicy duplicatePolicy) {
+        throw new IllegalStateException("Filtered tree is read-only, merge into the source tree instead");
+    }
+
+    /**
+     * 起始节点中只保留在视图中的 所以整个树的遍历、查询、导出都不会访问到视图外的顶层节点
+     * @return 视图中的根节点或顶层节点
+     */
+    @Override
+    protected Collection<N> startNodes() {
+        List<N> visibleNodes = new ArrayList<>();
+        for (N node : super.startNodes()) {
+            if (marks.containsKey(node)) {
+                visibleNodes.add(node);
+            }
+        }
+        return visibleNodes;
+    }
+
+    @Override
+    protected Collection<N> children(N node) {
+        Mark<N> mark = marks.get(node);
+        return mark == null ? null : mark.children;
+    }
+
+    @Override
+    public int cachedSize() {
+        return marks.size();
+    }
+
+    /**
+     * 标记时栈中的一帧
+     * @param <N> 节点类型
+     */
+    private static class Frame<N> {
+
+        private final N node;
+
+        /**
+         * 是否满足过滤条件
+         */
+        private final boolean matched;
+
+        /**
+         * 还未标记的子节点
+         */
+        private final Iterator<N> children;
+
+        /**
+         * 已标记的在视图中的子节点
+         */
+        private List<N> visibleChildren;
+
+        private Frame(N node, boolean matched, Collection<N> children) {
+            this.node = node;
+            this.matched = matched;
+            this.children = children == null ? null : children.iterator();
+        }
+    }
+
+    /**
+     * 节点标记
+     * @param <N> 节点类型
+     */
+    private static class Mark<N> {
+
+        /**
+         * 是否满足过滤条件
+         */
+        private final boolean matched;
+
+        /**
+         * 视图中的子节点 没有则为null
+         */
+        private final List<N> children;
+
+        private Mark(boolean matched, List<N> children) {
+            this.matched = matched;
+            this.children = children;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.mogudiandian.common.tree;
+
+import java.util.*;
+
+/**
+ * 可按下标访问的Set 保持插入顺序 不允许null
+ * 内部使用ArrayList保存顺序 HashMap记录每个元素的下标
+ * 添加、删除、判断存在为O(1) 删除时只将位置置空 下次按下标访问或迭代时再统一压缩 所以连续删除不会反复移动元素
+ * 按下标访问和查找下标在没有待压缩的位置时为O(1)
+ * 非线程安全
+ *
+ * @param <E> 元素类型
+ * @author Joshua Sun
+ * @since 2023/7/24
+ */
+public class IndexedSet<E> extends AbstractSet<E> implements RandomAccess {
+
+    /**
+     * 有序的元素 被删除的位置为null
+     */
+    protected final List<E> elements = new ArrayList<>();
+
+    /**
+     * 元素在elements中的下标
+     */
+    private final Map<E, Integer> positions = new HashMap<>();
+
+    /**
+     * elements中被删除的位置数量
+     */
+    private int removedCount;
+
+    /**
+     * 元素顺序被调整的次数 用于迭代时检测并发修改
+     */
+    private int modCount;
+
+    @Override
+    public boolean add(E e) {
+        Objects.requireNonNull(e, "Element can not be null");
+        if (positions.containsKey(e)) {
+            return false;
+        }
+        // 被删除的位置过多时顺便压缩 避免只增删不读取时无限增长
+        if (removedCount > elements.size() >> 1) {
+            compact();
+        }
+        positions.put(e, elements.size());
+        elements.add(e);
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        Integer position = positions.remove(o);
+        if (position == null) {
+            return false;
+        }
+        if (positions.isEmpty()) {
+            elements.clear();
+            removedCount = 0;
+        } else {
+            elements.set(position, null);
+            removedCount++;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return positions.containsKey(o);
+    }
+
+    @Override
+    public void clear() {
+        elements.clear();
+        positions.clear();
+        removedCount = 0;
+        modCount++;
+    }
+
+    @Override
+    public int size() {
+        return positions.size();
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        settle();
+        return new Iterator<E>() {
+            private final int expectedModCount = modCount;
+            private int cursor;
+            private E current;
+
+            @Override
+            public boolean hasNext() {
+                checkModCount();
+                // 跳过迭代期间被删除的位置
+                while (cursor < elements.size() && elements.get(cursor) == null) {
+                    cursor++;
+                }
+                return cursor < elements.size();
+            }
+
+            @Override
+            public E next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return current = elements.get(cursor++);
+            }
+
+            @Override
+            public void remove() {
+                if (current == null) {
+                    throw new IllegalStateException();
+                }
+                checkModCount();
+                IndexedSet.this.remove(current);
+                current = null;
+            }
+
+            private void checkModCount() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+            }
+        };
+    }
+
+    /**
+     * 按下标获取元素
+     * @param index 下标
+     * @return 元素
+     */
+    public E get(int index) {
+        settle();
+        return elements.get(index);
+    }
+
+    /**
+     * 获取元素的下标
+     * @param o 元素
+     * @return 下标 不存在返回-1
+     */
+    public int indexOf(Object o) {
+        if (!positions.containsKey(o)) {
+            return -1;
+        }
+        settle();
+        return positions.get(o);
+    }
+
+    /**
+     * 分页获取元素
+     * @param offset 起始下标
+     * @param limit 最多获取的数量
+     * @return 只读的元素列表 超出范围的部分会被忽略
+     */
+    public List<E> subList(int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset and limit can not be negative");
+        }
+        settle();
+        int size = elements.size();
+        if (offset >= size) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(elements.subList(offset, (int) Math.min((long) offset + limit, size)));
+    }
+
+    /**
+     * 按比较器原地排序 相等的元素保持原有顺序
+     * @param comparator 比较器
+     */
+    public void sort(Comparator<? super E> comparator) {
+        settle();
+        sortElements(comparator);
+    }
+
+    /**
+     * 按下标访问或迭代前调用 保证elements中没有被删除的位置 子类可以在此调整顺序
+     */
+    protected void settle() {
+        if (removedCount > 0) {
+            compact();
+        }
+    }
+
+    /**
+     * 对没有被删除位置的elements排序并重建下标
+     * @param comparator 比较器
+     */
+    protected void sortElements(Comparator<? super E> comparator) {
+        elements.sort(comparator);
+        for (int i = 0, size = elements.size(); i < size; i++) {
+            positions.put(elements.get(i), i);
+        }
+        modCount++;
+    }
+
+    /**
+     * 压缩被删除的位置 只更新移动了的元素的下标
+     */
+    private void compact() {
+        int size = elements.size();
+        int target = 0;
+        for (int i = 0; i < size; i++) {
+            E e = elements.get(i);
+            if (e != null) {
+                if (target != i) {
+                    elements.set(target, e);
+                    positions.put(e, target);
+                }
+                target++;
+            }
+        }
+        elements.subList(target, size).clear();
+        removedCount = 0;
+        modCount++;
+    }
+}
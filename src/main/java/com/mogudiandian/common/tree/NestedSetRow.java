@@ -0,0 +1,67 @@
+package com.mogudiandian.common.tree;
+
+import java.util.StringJoiner;
+
+/**
+ * 嵌套集合模型的一行 用于将树保存到关系型数据库
+ * 节点的后代节点都满足 left &lt; 后代的left &lt; right
+ *
+ * @param <I> 节点唯一标识类型
+ * @author Joshua Sun
+ * @since 2023/7/24
+ */
+public final class NestedSetRow<I> {
+
+    /**
+     * 节点唯一标识
+     */
+    private final I identifier;
+
+    /**
+     * 左值 进入节点时的序号
+     */
+    private final int left;
+
+    /**
+     * 右值 离开节点时的序号
+     */
+    private final int right;
+
+    /**
+     * 深度 顶层节点为0
+     */
+    private final int depth;
+
+    public NestedSetRow(I identifier, int left, int right, int depth) {
+        this.identifier = identifier;
+        this.left = left;
+        this.right = right;
+        this.depth = depth;
+    }
+
+    public I getIdentifier() {
+        return identifier;
+    }
+
+    public int getLeft() {
+        return left;
+    }
+
+    public int getRight() {
+        return right;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", NestedSetRow.class.getSimpleName() + "[", "]")
+                .add("identifier=" + identifier)
+                .add("left=" + left)
+                .add("right=" + right)
+                .add("depth=" + depth)
+                .toString();
+    }
+}
@@ -0,0 +1,778 @@
+package com.mogudiandian.common.tree;
+
+import com.mogudiandian.common.tree.AbstractTree.OrphanPolicy;
+import com.mogudiandian.common.tree.AbstractTree.TraversingAction;
+import com.mogudiandian.common.tree.AbstractTree.TraversingLimit;
+
+import java.io.Closeable;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+
+/**
+ * 堆外森林 用于千万级节点的树 堆上只保留少量对象 GC压力不随树的规模增长
+ * 每个节点是一条定长记录（唯一标识、父节点唯一标识、父节点、第一个子节点、最后一个子节点、下一个兄弟节点、层数、值的地址和长度）
+ * 节点之间通过记录的槽位号互相引用 唯一标识到槽位号的索引是堆外的开放寻址哈希表 节点值由编解码器保存在堆外
+ * 使用方式和树化一致：先add所有节点（顺序不限） 再treeize建立父子关系 树化后add的节点直接挂到已有的父节点下
+ * 遍历时使用可复用的游标 不为每个节点创建对象 访问函数不应在返回后继续持有游标 需要时使用copy
+ * 唯一标识为long 子节点按添加的先后排列 非线程安全 树化后只读时可以多线程读
+ *
+ * @param <V> 节点值类型
+ * @author Joshua Sun
+ * @since 2023/7/24
+ */
+public class OffHeapTree<V> implements Closeable {
+
+    /**
+     * 空槽位 顶层节点的父节点 叶子节点的第一个子节点等
+     */
+    private static final int NIL = -1;
+
+    /**
+     * 树化前还未找到父节点
+     */
+    private static final int UNLINKED = -2;
+
+    /**
+     * 找不到父节点被丢弃
+     */
+    private static final int DISCARDED = -3;
+
+    /*
+     * 节点记录的布局
+     */
+    private static final int ID = 0;
+    private static final int PARENT_ID = 8;
+    private static final int VALUE_ADDRESS = 16;
+    private static final int PARENT = 24;
+    private static final int FIRST_CHILD = 28;
+    private static final int LAST_CHILD = 32;
+    private static final int NEXT_SIBLING = 36;
+    private static final int LAYER = 40;
+    private static final int VALUE_LENGTH = 44;
+    private static final int RECORD_SIZE = 48;
+
+    /**
+     * 每块的记录数
+     */
+    private static final int RECORDS_PER_CHUNK = 1 << 16;
+
+    /**
+     * 索引每项的大小 唯一标识(long) + 槽位号+1(int) 0表示空
+     */
+    private static final int ENTRY_SIZE = 16;
+
+    /**
+     * 索引每块的大小
+     */
+    private static final int INDEX_CHUNK_SIZE = 1 << 20;
+
+    /**
+     * 值每块的默认大小
+     */
+    private static final int DEFAULT_VALUE_CHUNK_SIZE = 1 << 22;
+
+    /**
+     * 编码后长度为0的值 不占用值的空间
+     */
+    private static final ByteBuffer EMPTY_VALUE = ByteBuffer.allocate(0).asReadOnlyBuffer();
+
+    /**
+     * 缓冲区分配器
+     */
+    private final BufferAllocator allocator;
+
+    /**
+     * 值的编解码器
+     */
+    private final ValueCodec<V> codec;
+
+    /**
+     * 节点记录
+     */
+    private ChunkedBuffer records;
+
+    /**
+     * 节点值
+     */
+    private ChunkedBuffer values;
+
+    /**
+     * 唯一标识索引
+     */
+    private ChunkedBuffer index;
+
+    /**
+     * 索引容量 2的幂
+     */
+    private int indexCapacity;
+
+    /**
+     * 记录数量（包括被丢弃的）
+     */
+    private int count;
+
+    /**
+     * 值已使用的字节数
+     */
+    private long valueSize;
+
+    /**
+     * 第一个和最后一个顶层节点 顶层节点之间通过下一个兄弟节点相连
+     */
+    private int firstTop = NIL, lastTop = NIL;
+
+    /**
+     * 树中的节点数量
+     */
+    private int size;
+
+    /**
+     * 是否已经树化
+     */
+    private boolean treeized;
+
+    /**
+     * 使用直接内存
+     * @param codec 值的编解码器
+     */
+    public OffHeapTree(ValueCodec<V> codec) {
+        this(codec, BufferAllocator.direct());
+    }
+
+    /**
+     * 构造
+     * @param codec 值的编解码器
+     * @param allocator 缓冲区分配器
+     */
+    public OffHeapTree(ValueCodec<V> codec, BufferAllocator allocator) {
+        this(codec, allocator, DEFAULT_VALUE_CHUNK_SIZE);
+    }
+
+    /**
+     * 构造
+     * @param codec 值的编解码器
+     * @param allocator 缓冲区分配器
+     * @param valueChunkSize 值每块的大小 单个值编码后不能超过该大小
+     */
+    public OffHeapTree(ValueCodec<V> codec, BufferAllocator allocator, int valueChunkSize) {
+        this.codec = codec;
+        this.allocator = allocator;
+        this.records = new ChunkedBuffer(allocator, RECORD_SIZE * RECORDS_PER_CHUNK);
+        this.values = new ChunkedBuffer(allocator, valueChunkSize);
+        this.indexCapacity = 1 << 10;
+        this.index = newIndex(indexCapacity);
+    }
+
+    /**
+     * 添加顶层节点
+     * @param identifier 唯一标识
+     * @param value 值
+     */
+    public void add(long identifier, V value) {
+        add(identifier, 0, true, value);
+    }
+
+    /**
+     * 添加节点 树化前父节点可以还未添加 树化后父节点必须已经在树中
+     * @param identifier 唯一标识
+     * @param parentIdentifier 父节点唯一标识
+     * @param value 值
+     */
+    public void add(long identifier, long parentIdentifier, V value) {
+        add(identifier, parentIdentifier, false, value);
+    }
+
+    private void add(long identifier, long parentIdentifier, boolean top, V value) {
+        checkOpen();
+        if (lookup(identifier) != NIL) {
+            throw new IllegalStateException("Found replicated node " + identifier);
+        }
+        int parent = NIL;
+        if (!top && treeized) {
+            parent = lookup(parentIdentifier);
+            if (parent == NIL || getInt(parent, LAYER) < 0) {
+                throw new IllegalStateException("Cannot find parent node '" + parentIdentifier + "' for node '" + identifier + "'");
+            }
+        }
+
+        // 先编码和校验值 再占用槽位 失败时不会留下未挂接的记录
+        byte[] bytes = encodeValue(identifier, value);
+        int slot = count;
+        records.ensureCapacity((long) (slot + 1) * RECORD_SIZE);
+        putLong(slot, ID, identifier);
+        putLong(slot, PARENT_ID, parentIdentifier);
+        putInt(slot, PARENT, top ? NIL : UNLINKED);
+        putInt(slot, FIRST_CHILD, NIL);
+        putInt(slot, LAST_CHILD, NIL);
+        putInt(slot, NEXT_SIBLING, NIL);
+        putInt(slot, LAYER, -1);
+        writeValue(slot, bytes);
+        indexPut(identifier, slot);
+        count++;
+
+        if (treeized) {
+            link(slot, parent);
+            putInt(slot, LAYER, parent == NIL ? 0 : getInt(parent, LAYER) + 1);
+            size++;
+        }
+    }
+
+    /**
+     * 树化 孤儿节点丢弃
+     */
+    public void treeize() {
+        treeize(OrphanPolicy.DISCARD);
+    }
+
+    /**
+     * 树化 按添加的先后建立父子关系 然后计算每个节点的层数
+     * 被丢弃的节点及其后代节点、成环的节点不在树中
+     * @param orphanPolicy 孤儿策略
+     */
+    public void treeize(OrphanPolicy orphanPolicy) {
+        checkOpen();
+        if (treeized) {
+            throw new IllegalStateException("Tree has been treeized");
+        }
+        for (int slot = 0; slot < count; slot++) {
+            if (getInt(slot, PARENT) != UNLINKED) {
+                link(slot, NIL);
+                continue;
+            }
+            long parentIdentifier = getLong(slot, PARENT_ID);
+            int parent = lookup(parentIdentifier);
+            if (parent != NIL && parent != slot) {
+                link(slot, parent);
+            } else if (orphanPolicy == OrphanPolicy.REJECT) {
+                throw new IllegalStateException("Cannot find parent node '" + parentIdentifier + "' for node '" + getLong(slot, ID) + "'");
+            } else {
+                putInt(slot, PARENT, DISCARDED);
+            }
+        }
+
+        // 如果需要置顶孤儿 这里将孤儿置顶 排在原有的顶层节点之后
+        if (orphanPolicy == OrphanPolicy.TOP) {
+            for (int slot = 0; slot < count; slot++) {
+                if (getInt(slot, PARENT) == DISCARDED) {
+                    link(slot, NIL);
+                }
+            }
+        }
+
+        // 从顶层节点开始计算层数 没有访问到的节点层数保持为-1
+        int[] temp = new int[1];
+        traverse(NIL, TraversingLimit.NONE, slot -> {
+            int parent = getInt(slot, PARENT);
+            putInt(slot, LAYER, parent == NIL ? 0 : getInt(parent, LAYER) + 1);
+            temp[0]++;
+            return TraversingAction.CONTINUE;
+        });
+        size = temp[0];
+        treeized = true;
+    }
+
+    /**
+     * 建立父子关系 子节点排在最后
+     * @param slot 子节点
+     * @param parent 父节点 为NIL时为顶层节点
+     */
+    private void link(int slot, int parent) {
+        putInt(slot, PARENT, parent);
+        int last = parent == NIL ? lastTop : getInt(parent, LAST_CHILD);
+        if (last == NIL) {
+            if (parent == NIL) {
+                firstTop = slot;
+            } else {
+                putInt(parent, FIRST_CHILD, slot);
+            }
+        } else {
+            putInt(last, NEXT_SIBLING, slot);
+        }
+        if (parent == NIL) {
+            lastTop = slot;
+        } else {
+            putInt(parent, LAST_CHILD, slot);
+        }
+    }
+
+    /**
+     * 深度优先遍历 利用父节点和兄弟节点的引用回溯 不需要栈
+     * @param from 从哪个节点开始 只遍历其子树 为NIL时遍历所有顶层节点
+     * @param limit 遍历限制
+     * @param visitor 访问到槽位执行的函数 并返回是否遍历动作
+     */
+    private void traverse(int from, TraversingLimit limit, IntFunction<TraversingAction> visitor) {
+        int maxDepth = limit.getMaxDepth();
+        int maxVisits = limit.getMaxVisits();
+        int visits = 0;
+        int depth = 0;
+        int current = from == NIL ? firstTop : from;
+        while (current != NIL) {
+            if (maxVisits >= 0 && visits >= maxVisits) {
+                break;
+            }
+            visits++;
+            TraversingAction action = visitor.apply(current);
+            if (action == TraversingAction.STOP) {
+                break;
+            }
+            int next = NIL;
+            if (action == TraversingAction.CONTINUE && (maxDepth < 0 || depth < maxDepth)) {
+                next = getInt(current, FIRST_CHILD);
+            }
+            if (next != NIL) {
+                depth++;
+            } else {
+                // 没有子节点或不再深入 找自身或祖先的下一个兄弟节点 到达起始节点时结束
+                for (int x = current; x != from && x != NIL; x = getInt(x, PARENT), depth--) {
+                    next = getInt(x, NEXT_SIBLING);
+                    if (next != NIL) {
+                        break;
+                    }
+                }
+            }
+            current = next;
+        }
+    }
+
+    /**
+     * 限制深度和访问数量的深度优先遍历
+     * @param fromIdentifier 要从哪个节点开始遍历
+     * @param limit 遍历限制
+     * @param visitor 访问到节点执行的函数 参数为复用的游标 并返回是否遍历动作
+     */
+    public void dft(long fromIdentifier, TraversingLimit limit, Function<Cursor, TraversingAction> visitor) {
+        int from = slotInTree(fromIdentifier);
+        if (from == NIL) {
+            throw new IllegalStateException("Cannot find node " + fromIdentifier);
+        }
+        Cursor cursor = new Cursor(from);
+        traverse(from, limit, slot -> visitor.apply(cursor.at(slot)));
+    }
+
+    /**
+     * 限制深度和访问数量的深度优先遍历整个树
+     * @param limit 遍历限制
+     * @param visitor 访问到节点执行的函数 参数为复用的游标 并返回是否遍历动作
+     */
+    public void dft(TraversingLimit limit, Function<Cursor, TraversingAction> visitor) {
+        checkTreeized();
+        Cursor cursor = new Cursor(NIL);
+        traverse(NIL, limit, slot -> visitor.apply(cursor.at(slot)));
+    }
+
+    /**
+     * 深度优先遍历整个树
+     * @param visitor 访问到节点执行的函数 参数为复用的游标 并返回是否遍历动作
+     */
+    public void dft(Function<Cursor, TraversingAction> visitor) {
+        dft(TraversingLimit.NONE, visitor);
+    }
+
+    /**
+     * 深度优先遍历整个树 访问所有节点
+     * @param consumer 参数为复用的游标
+     */
+    public void dft(Consumer<Cursor> consumer) {
+        dft(x -> {
+            consumer.accept(x);
+            return TraversingAction.CONTINUE;
+        });
+    }
+
+    /**
+     * 深度优先搜索
+     * @param predicate 节点需要满足的谓词
+     * @return 第一个满足谓词的节点的游标 找不到时为null
+     */
+    public Cursor dfs(Predicate<Cursor> predicate) {
+        int[] result = new int[]{NIL};
+        dft(x -> {
+            if (predicate.test(x)) {
+                result[0] = x.slot;
+                return TraversingAction.STOP;
+            }
+            return TraversingAction.CONTINUE;
+        });
+        return result[0] == NIL ? null : new Cursor(result[0]);
+    }
+
+    /**
+     * 根据唯一标识查找节点
+     * @param identifier 唯一标识
+     * @return 指向该节点的游标 找不到时为null
+     */
+    public Cursor find(long identifier) {
+        int slot = slotInTree(identifier);
+        return slot == NIL ? null : new Cursor(slot);
+    }
+
+    /**
+     * 获取顶层节点的游标 通过toNextSibling访问其它顶层节点
+     * @return 指向第一个顶层节点的游标 空树时为null
+     */
+    public Cursor first() {
+        checkTreeized();
+        return firstTop == NIL ? null : new Cursor(firstTop);
+    }
+
+    /**
+     * 输出树形结构
+     * @param printer 输出函数
+     * @param formatter 当前节点要输出的信息函数
+     * @param firstPrefix 第一个前缀
+     * @param otherPrefix 后续前缀
+     */
+    public void print(Consumer<String> printer, Function<Cursor, String> formatter, String firstPrefix, String otherPrefix) {
+        dft(x -> {
+            StringBuilder stringBuilder = new StringBuilder();
+            for (int i = 0, len = x.getLayer(); i < len; ) {
+                stringBuilder.append(firstPrefix != null ? firstPrefix : otherPrefix);
+                while (++i < len) {
+                    stringBuilder.append(otherPrefix);
+                }
+            }
+            stringBuilder.append(formatter.apply(x));
+            printer.accept(stringBuilder.toString());
+        });
+    }
+
+    /**
+     * 输出树形结构
+     * @param printStream 输出流
+     * @param formatter 当前节点要输出的信息函数
+     * @param firstPrefix 第一个前缀
+     * @param otherPrefix 后续前缀
+     */
+    public void print(PrintStream printStream, Function<Cursor, String> formatter, String firstPrefix, String otherPrefix) {
+        print(printStream::println, formatter, firstPrefix, otherPrefix);
+    }
+
+    /**
+     * 树中的节点数量 树化前为0
+     * @return 节点数量
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 已分配的堆外内存字节数
+     * @return 字节数
+     */
+    public long allocatedBytes() {
+        return records == null ? 0 : records.capacity() + values.capacity() + index.capacity();
+    }
+
+    /**
+     * 释放所有缓冲区的引用 之后不能再使用
+     */
+    @Override
+    public void close() {
+        if (records != null) {
+            records.clear();
+            values.clear();
+            index.clear();
+            records = values = index = null;
+        }
+    }
+
+    private void checkOpen() {
+        if (records == null) {
+            throw new IllegalStateException("Tree has been closed");
+        }
+    }
+
+    private void checkTreeized() {
+        checkOpen();
+        if (!treeized) {
+            throw new IllegalStateException("Tree has not been treeized");
+        }
+    }
+
+    /**
+     * 在树中的节点的槽位
+     * @param identifier 唯一标识
+     * @return 槽位 不存在或不在树中时为NIL
+     */
+    private int slotInTree(long identifier) {
+        checkTreeized();
+        int slot = lookup(identifier);
+        return slot == NIL || getInt(slot, LAYER) < 0 ? NIL : slot;
+    }
+
+    /*
+     * 节点记录的读写
+     */
+
+    private long getLong(int slot, int field) {
+        return records.getLong((long) slot * RECORD_SIZE + field);
+    }
+
+    private void putLong(int slot, int field, long value) {
+        records.putLong((long) slot * RECORD_SIZE + field, value);
+    }
+
+    private int getInt(int slot, int field) {
+        return records.getInt((long) slot * RECORD_SIZE + field);
+    }
+
+    private void putInt(int slot, int field, int value) {
+        records.putInt((long) slot * RECORD_SIZE + field, value);
+    }
+
+    /*
+     * 节点值的读写
+     */
+
+    /**
+     * 编码节点值 编码后超过块大小时拒绝
+     * @param identifier 唯一标识
+     * @param value 值
+     * @return 编码后的字节 值为null时返回null
+     */
+    private byte[] encodeValue(long identifier, V value) {
+        if (value == null) {
+            return null;
+        }
+        byte[] bytes = codec.encode(value);
+        int chunkSize = values.chunkSize();
+        if (bytes.length > chunkSize) {
+            throw new IllegalArgumentException("Encoded value of node " + identifier + " is larger than " + chunkSize + " bytes");
+        }
+        return bytes;
+    }
+
+    /**
+     * 写入编码后的节点值 一个值不会跨块
+     * @param slot 槽位
+     * @param bytes 编码后的字节 为null表示值为null
+     */
+    private void writeValue(int slot, byte[] bytes) {
+        if (bytes == null) {
+            putInt(slot, VALUE_LENGTH, -1);
+            return;
+        }
+        // 空值不写入 否则在还没有分配块或恰好写满一块时会越界
+        if (bytes.length == 0) {
+            putLong(slot, VALUE_ADDRESS, 0);
+            putInt(slot, VALUE_LENGTH, 0);
+            return;
+        }
+        int chunkSize = values.chunkSize();
+        // 当前块剩余空间不足时从下一块开始
+        long address = valueSize;
+        if (address % chunkSize + bytes.length > chunkSize) {
+            address = (address / chunkSize + 1) * chunkSize;
+        }
+        values.ensureCapacity(address + bytes.length);
+        values.put(address, bytes);
+        valueSize = address + bytes.length;
+        putLong(slot, VALUE_ADDRESS, address);
+        putInt(slot, VALUE_LENGTH, bytes.length);
+    }
+
+    private ByteBuffer valueBuffer(int slot) {
+        int length = getInt(slot, VALUE_LENGTH);
+        if (length <= 0) {
+            return length < 0 ? null : EMPTY_VALUE;
+        }
+        return values.slice(getLong(slot, VALUE_ADDRESS), length);
+    }
+
+    /*
+     * 唯一标识索引 线性探测的开放寻址哈希表
+     */
+
+    private ChunkedBuffer newIndex(int capacity) {
+        ChunkedBuffer buffer = new ChunkedBuffer(allocator, (int) Math.min((long) capacity * ENTRY_SIZE, INDEX_CHUNK_SIZE));
+        buffer.ensureCapacity((long) capacity * ENTRY_SIZE);
+        return buffer;
+    }
+
+    /**
+     * 唯一标识的哈希值
+     */
+    private static int hash(long identifier) {
+        identifier ^= identifier >>> 33;
+        identifier *= 0xff51afd7ed558ccdL;
+        identifier ^= identifier >>> 33;
+        return (int) identifier;
+    }
+
+    /**
+     * 查找槽位
+     * @param identifier 唯一标识
+     * @return 槽位 找不到时为NIL
+     */
+    private int lookup(long identifier) {
+        int mask = indexCapacity - 1;
+        for (int i = hash(identifier) & mask; ; i = (i + 1) & mask) {
+            long address = (long) i * ENTRY_SIZE;
+            int slot = index.getInt(address + 8) - 1;
+            if (slot == NIL || index.getLong(address) == identifier) {
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * 放入索引 超过负载因子时扩容
+     * @param identifier 唯一标识
+     * @param slot 槽位
+     */
+    private void indexPut(long identifier, int slot) {
+        if ((long) (count + 1) * 4 > (long) indexCapacity * 3) {
+            ChunkedBuffer old = index;
+            int oldCapacity = indexCapacity;
+            indexCapacity <<= 1;
+            index = newIndex(indexCapacity);
+            for (int i = 0; i < oldCapacity; i++) {
+                long address = (long) i * ENTRY_SIZE;
+                int oldSlot = old.getInt(address + 8) - 1;
+                if (oldSlot != NIL) {
+                    insert(old.getLong(address), oldSlot);
+                }
+            }
+            old.clear();
+        }
+        insert(identifier, slot);
+    }
+
+    private void insert(long identifier, int slot) {
+        int mask = indexCapacity - 1;
+        int i = hash(identifier) & mask;
+        while (index.getInt((long) i * ENTRY_SIZE + 8) != 0) {
+            i = (i + 1) & mask;
+        }
+        index.putLong((long) i * ENTRY_SIZE, identifier);
+        index.putInt((long) i * ENTRY_SIZE + 8, slot + 1);
+    }
+
+    /**
+     * 节点游标 指向一个节点 可以移动到父节点、子节点和兄弟节点
+     * 遍历时同一个游标会被复用 需要保留时使用copy
+     */
+    public final class Cursor {
+
+        /**
+         * 当前槽位
+         */
+        private int slot;
+
+        private Cursor(int slot) {
+            this.slot = slot;
+        }
+
+        private Cursor at(int slot) {
+            this.slot = slot;
+            return this;
+        }
+
+        /**
+         * 复制一个指向同一节点的游标
+         * @return 新的游标
+         */
+        public Cursor copy() {
+            return new Cursor(slot);
+        }
+
+        public long getIdentifier() {
+            return getLong(slot, ID);
+        }
+
+        /**
+         * 获取父节点唯一标识
+         * @return 父节点唯一标识 顶层节点没有父节点时抛出异常
+         */
+        public long getParentIdentifier() {
+            int parent = getInt(slot, PARENT);
+            if (parent == NIL) {
+                throw new IllegalStateException("Node " + getIdentifier() + " is a top node");
+            }
+            return getLong(parent, ID);
+        }
+
+        /**
+         * 是否为顶层节点
+         * @return 是否为顶层节点
+         */
+        public boolean isTop() {
+            return getInt(slot, PARENT) == NIL;
+        }
+
+        /**
+         * 是否为叶子节点
+         * @return 是否为叶子节点
+         */
+        public boolean isLeaf() {
+            return getInt(slot, FIRST_CHILD) == NIL;
+        }
+
+        /**
+         * 获取层数
+         * @return 层数 顶层为0
+         */
+        public int getLayer() {
+            return getInt(slot, LAYER);
+        }
+
+        /**
+         * 解码节点值 每次调用都会解码
+         * @return 节点值
+         */
+        public V getValue() {
+            ByteBuffer buffer = valueBuffer(slot);
+            return buffer == null ? null : codec.decode(buffer);
+        }
+
+        /**
+         * 获取编码后的节点值 不复制数据 只需要部分字段时可以避免完整解码
+         * @return 只读的缓冲区 值为null时为null
+         */
+        public ByteBuffer getValueBuffer() {
+            return valueBuffer(slot);
+        }
+
+        /**
+         * 移动到父节点
+         * @return 是否移动成功 顶层节点没有父节点
+         */
+        public boolean toParent() {
+            return moveTo(getInt(slot, PARENT));
+        }
+
+        /**
+         * 移动到第一个子节点
+         * @return 是否移动成功 叶子节点没有子节点
+         */
+        public boolean toFirstChild() {
+            return moveTo(getInt(slot, FIRST_CHILD));
+        }
+
+        /**
+         * 移动到下一个兄弟节点 顶层节点的兄弟节点为其它顶层节点
+         * @return 是否移动成功 最后一个节点没有下一个兄弟节点
+         */
+        public boolean toNextSibling() {
+            return moveTo(getInt(slot, NEXT_SIBLING));
+        }
+
+        private boolean moveTo(int target) {
+            if (target == NIL) {
+                return false;
+            }
+            slot = target;
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return "Cursor{identifier=" + getIdentifier() + ", layer=" + getLayer() + "}";
+        }
+    }
+}
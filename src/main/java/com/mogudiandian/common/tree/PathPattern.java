@@ -0,0 +1,259 @@
+package com.mogudiandian.common.tree;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * 路径模式 按节点名称组成的路径查询节点 例如 /tech/*&#47;tech-* 或 /admin/**&#47;salary
+ * 每一段可以是名称、包含*或?的通配符（只匹配本段） 或者**（匹配任意多段 包括0段） 路径从顶层节点开始
+ * 编译后为状态机 查询时只会进入仍可能匹配的子树 编译结果不可变 可以缓存并在多个树之间复用
+ *
+ * @author Joshua Sun
+ * @since 2023/7/24
+ */
+public final class PathPattern {
+
+    /**
+     * 最多的段数 状态用long的位表示
+     */
+    private static final int MAX_SEGMENTS = 63;
+
+    /**
+     * 原始的模式
+     */
+    private final String pattern;
+
+    /**
+     * 所有段
+     */
+    private final Segment[] segments;
+
+    /**
+     * 初始状态
+     */
+    private final long initialStates;
+
+    /**
+     * 接受状态 所有段都已匹配
+     */
+    private final long acceptState;
+
+    private PathPattern(String pattern, Segment[] segments) {
+        this.pattern = pattern;
+        this.segments = segments;
+        this.initialStates = closure(1L);
+        this.acceptState = 1L << segments.length;
+    }
+
+    /**
+     * 编译路径模式 使用/作为分隔符
+     * @param pattern 路径模式
+     * @return 编译后的路径模式
+     */
+    public static PathPattern compile(String pattern) {
+        return compile(pattern, '/');
+    }
+
+    /**
+     * 编译路径模式
+     * @param pattern 路径模式
+     * @param separator 分隔符
+     * @return 编译后的路径模式
+     */
+    public static PathPattern compile(String pattern, char separator) {
+        if (pattern == null) {
+            throw new IllegalArgumentException("Pattern can not be null");
+        }
+        List<Segment> segments = new ArrayList<>();
+        int start = 0;
+        for (int i = 0, len = pattern.length(); i <= len; i++) {
+            if (i == len || pattern.charAt(i) == separator) {
+                // 忽略空的段 所以开头的分隔符和连续的分隔符都没有影响
+                if (i > start) {
+                    segments.add(new Segment(pattern.substring(start, i)));
+                }
+                start = i + 1;
+            }
+        }
+        if (segments.size() > MAX_SEGMENTS) {
+            throw new IllegalArgumentException("Pattern can not have more than " + MAX_SEGMENTS + " segments: " + pattern);
+        }
+        return new PathPattern(pattern, segments.toArray(new Segment[0]));
+    }
+
+    /**
+     * 在树中查询匹配的节点 不可能匹配的子树不会被访问
+     * @param tree 树
+     * @param nameFunction 获取节点在路径中名称的函数
+     * @param <N> 节点类型
+     * @return 匹配的节点 按深度优先的顺序排列
+     */
+    public <V, I, N extends AbstractTreeNode<V, I, N>> List<N> select(AbstractTree<V, I, N> tree, Function<N, String> nameFunction) {
+        List<N> list = new ArrayList<>();
+        Deque<Iterator<N>> stack = new ArrayDeque<>();
+        // 每一层迭代器对应的父节点状态
+        long[] states = new long[16];
+        stack.push(new ArrayList<>(tree.startNodes()).iterator());
+        states[0] = initialStates;
+        while (!stack.isEmpty()) {
+            Iterator<N> iterator = stack.peek();
+            if (!iterator.hasNext()) {
+                stack.pop();
+                continue;
+            }
+            N current = iterator.next();
+            long next = step(states[stack.size() - 1], nameFunction.apply(current));
+            // 没有存活的状态 整个子树都不可能匹配
+            if (next == 0) {
+                continue;
+            }
+            if ((next & acceptState) != 0) {
+                list.add(current);
+            }
+            // 只剩接受状态时后代节点不可能匹配
+            if (next == acceptState) {
+                continue;
+            }
+            Collection<N> children = tree.children(current);
+            if (children != null && !children.isEmpty()) {
+                if (stack.size() == states.length) {
+                    states = Arrays.copyOf(states, states.length * 2);
+                }
+                states[stack.size()] = next;
+                stack.push(new ArrayList<>(children).iterator());
+            }
+        }
+        return list;
+    }
+
+    /**
+     * 判断节点的路径是否匹配
+     * @param node 节点
+     * @param nameFunction 获取节点在路径中名称的函数
+     * @param <N> 节点类型
+     * @return 是否匹配
+     */
+    public <N extends AbstractTreeNode<?, ?, N>> boolean matches(N node, Function<N, String> nameFunction) {
+        List<String> names = new ArrayList<>();
+        for (N current = node; current != null; current = current.getParent()) {
+            names.add(nameFunction.apply(current));
+        }
+        long states = initialStates;
+        for (int i = names.size() - 1; i >= 0 && states != 0; i--) {
+            states = step(states, names.get(i));
+        }
+        return (states & acceptState) != 0;
+    }
+
+    /**
+     * 状态转移
+     * @param states 当前状态 第i位表示已匹配前i段
+     * @param name 节点名称
+     * @return 转移后的状态
+     */
+    private long step(long states, String name) {
+        long next = 0;
+        for (int i = 0; i < segments.length; i++) {
+            if ((states & (1L << i)) == 0) {
+                continue;
+            }
+            Segment segment = segments[i];
+            if (segment.anyDepth) {
+                // **消耗一段后仍停留在当前状态
+                next |= 1L << i;
+            } else if (segment.matches(name)) {
+                next |= 1L << (i + 1);
+            }
+        }
+        return closure(next);
+    }
+
+    /**
+     * 空转移的闭包 **可以不匹配任何段 直接进入下一个状态
+     * @param states 状态
+     * @return 闭包后的状态
+     */
+    private long closure(long states) {
+        for (int i = 0; i < segments.length; i++) {
+            if ((states & (1L << i)) != 0 && segments[i].anyDepth) {
+                states |= 1L << (i + 1);
+            }
+        }
+        return states;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", PathPattern.class.getSimpleName() + "[", "]")
+                .add("pattern='" + pattern + "'")
+                .toString();
+    }
+
+    /**
+     * 路径的一段
+     */
+    private static final class Segment {
+
+        /**
+         * 段的文本
+         */
+        private final String text;
+
+        /**
+         * 是否为** 匹配任意多段
+         */
+        private final boolean anyDepth;
+
+        /**
+         * 是否包含通配符
+         */
+        private final boolean wildcard;
+
+        private Segment(String text) {
+            this.text = text;
+            this.anyDepth = "**".equals(text);
+            this.wildcard = !anyDepth && (text.indexOf('*') >= 0 || text.indexOf('?') >= 0);
+        }
+
+        /**
+         * 判断名称是否匹配本段 *匹配任意多个字符 ?匹配一个字符
+         * @param name 名称
+         * @return 是否匹配
+         */
+        private boolean matches(String name) {
+            if (name == null) {
+                return false;
+            }
+            if (!wildcard) {
+                return text.equals(name);
+            }
+            int t = 0;
+            int n = 0;
+            // 最近一个*的位置 以及此时名称匹配到的位置 用于回溯
+            int star = -1;
+            int mark = 0;
+            while (n < name.length()) {
+                if (t < text.length() && (text.charAt(t) == '?' || text.charAt(t) == name.charAt(n))) {
+                    t++;
+                    n++;
+                } else if (t < text.length() && text.charAt(t) == '*') {
+                    star = t++;
+                    mark = n;
+                } else if (star >= 0) {
+                    t = star + 1;
+                    n = ++mark;
+                } else {
+                    return false;
+                }
+            }
+            while (t < text.length() && text.charAt(t) == '*') {
+                t++;
+            }
+            return t == text.length();
+        }
+    }
+}
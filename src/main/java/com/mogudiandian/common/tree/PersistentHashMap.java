@@ -0,0 +1,354 @@
+package com.mogudiandian.common.tree;
+
+/**
+ * 不可变的持久化哈希表（HAMT）
+ * 每次修改返回新的版本 只复制从根到被修改位置的路径 其余部分与旧版本共享
+ * 键不能为null 值可以为null
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ * @author Joshua Sun
+ * @since 2023/7/24
+ */
+final class PersistentHashMap<K, V> {
+
+    /**
+     * 每一层使用哈希值的位数
+     */
+    private static final int BITS = 5;
+
+    /**
+     * 每一层的掩码
+     */
+    private static final int MASK = (1 << BITS) - 1;
+
+    /**
+     * 查找不到时的返回值
+     */
+    private static final Object NOT_FOUND = new Object();
+
+    @SuppressWarnings("rawtypes")
+    private static final PersistentHashMap EMPTY = new PersistentHashMap<>(null, 0);
+
+    /**
+     * 根节点 空表时为null
+     */
+    private final Node root;
+
+    /**
+     * 键值对数量
+     */
+    private final int size;
+
+    private PersistentHashMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * 获取空表
+     * @return 空表
+     */
+    @SuppressWarnings("unchecked")
+    static <K, V> PersistentHashMap<K, V> empty() {
+        return (PersistentHashMap<K, V>) EMPTY;
+    }
+
+    /**
+     * 获取值
+     * @param key 键
+     * @return 值 不存在时为null
+     */
+    @SuppressWarnings("unchecked")
+    V get(K key) {
+        Object value = root == null ? NOT_FOUND : root.find(0, hash(key), key);
+        return value == NOT_FOUND ? null : (V) value;
+    }
+
+    /**
+     * 是否包含键
+     * @param key 键
+     * @return 是否包含
+     */
+    boolean containsKey(K key) {
+        return root != null && root.find(0, hash(key), key) != NOT_FOUND;
+    }
+
+    /**
+     * 放入键值对
+     * @param key 键
+     * @param value 值
+     * @return 新的版本 没有变化时返回当前版本
+     */
+    PersistentHashMap<K, V> put(K key, V value) {
+        boolean[] added = new boolean[1];
+        Node newRoot = (root == null ? BitmapNode.EMPTY : root).put(0, hash(key), key, value, added);
+        if (newRoot == root) {
+            return this;
+        }
+        return new PersistentHashMap<>(newRoot, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * 移除键
+     * @param key 键
+     * @return 新的版本 不包含该键时返回当前版本
+     */
+    PersistentHashMap<K, V> remove(K key) {
+        if (root == null) {
+            return this;
+        }
+        Node newRoot = root.remove(0, hash(key), key);
+        if (newRoot == root) {
+            return this;
+        }
+        return newRoot == null ? empty() : new PersistentHashMap<>(newRoot, size - 1);
+    }
+
+    /**
+     * 键值对数量
+     * @return 数量
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * 扰动后的哈希值 让高位也参与低层的分布
+     * @param key 键
+     * @return 哈希值
+     */
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * 哈希值在某一层对应的位
+     * @param hash 哈希值
+     * @param shift 偏移量
+     * @return 位
+     */
+    private static int bitpos(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    /**
+     * 复制数组并替换一个元素
+     */
+    private static Object[] copyAndSet(Object[] array, int i, Object value) {
+        Object[] copy = array.clone();
+        copy[i] = value;
+        return copy;
+    }
+
+    /**
+     * 复制数组并在某个位置插入一个键值对
+     */
+    private static Object[] copyAndInsertPair(Object[] array, int i, Object key, Object value) {
+        Object[] copy = new Object[array.length + 2];
+        System.arraycopy(array, 0, copy, 0, i);
+        copy[i] = key;
+        copy[i + 1] = value;
+        System.arraycopy(array, i, copy, i + 2, array.length - i);
+        return copy;
+    }
+
+    /**
+     * 复制数组并移除某个位置的键值对
+     */
+    private static Object[] copyAndRemovePair(Object[] array, int i) {
+        Object[] copy = new Object[array.length - 2];
+        System.arraycopy(array, 0, copy, 0, i);
+        System.arraycopy(array, i + 2, copy, i, array.length - i - 2);
+        return copy;
+    }
+
+    /**
+     * 内部节点
+     */
+    private interface Node {
+
+        /**
+         * 查找
+         * @return 值 查找不到时返回NOT_FOUND
+         */
+        Object find(int shift, int hash, Object key);
+
+        /**
+         * 放入
+         * @param added 是否新增了键 输出参数
+         * @return 新的节点 没有变化时返回当前节点
+         */
+        Node put(int shift, int hash, Object key, Object value, boolean[] added);
+
+        /**
+         * 移除
+         * @return 新的节点 没有变化时返回当前节点 移除后为空时返回null
+         */
+        Node remove(int shift, int hash, Object key);
+    }
+
+    /**
+     * 位图节点 位图中每一位对应一个槽 数组中依次存放存在的槽
+     * 每个槽占两个元素 键不为null时为键值对 键为null时值为下一层节点
+     */
+    private static final class BitmapNode implements Node {
+
+        private static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        private final int bitmap;
+
+        private final Object[] array;
+
+        private BitmapNode(int bitmap, Object[] array) {
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+
+        /**
+         * 某一位对应的键在数组中的下标
+         */
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1)) << 1;
+        }
+
+        @Override
+        public Object find(int shift, int hash, Object key) {
+            int bit = bitpos(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return NOT_FOUND;
+            }
+            int i = index(bit);
+            Object k = array[i];
+            Object v = array[i + 1];
+            if (k == null) {
+                return ((Node) v).find(shift + BITS, hash, key);
+            }
+            return key.equals(k) ? v : NOT_FOUND;
+        }
+
+        @Override
+        public Node put(int shift, int hash, Object key, Object value, boolean[] added) {
+            int bit = bitpos(hash, shift);
+            int i = index(bit);
+            if ((bitmap & bit) == 0) {
+                added[0] = true;
+                return new BitmapNode(bitmap | bit, copyAndInsertPair(array, i, key, value));
+            }
+            Object k = array[i];
+            Object v = array[i + 1];
+            if (k == null) {
+                Node child = ((Node) v).put(shift + BITS, hash, key, value, added);
+                return child == v ? this : new BitmapNode(bitmap, copyAndSet(array, i + 1, child));
+            }
+            if (key.equals(k)) {
+                return v == value ? this : new BitmapNode(bitmap, copyAndSet(array, i + 1, value));
+            }
+            // 槽冲突 下沉到下一层
+            added[0] = true;
+            Node child = createNode(shift + BITS, k, v, hash, key, value);
+            Object[] copy = array.clone();
+            copy[i] = null;
+            copy[i + 1] = child;
+            return new BitmapNode(bitmap, copy);
+        }
+
+        @Override
+        public Node remove(int shift, int hash, Object key) {
+            int bit = bitpos(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int i = index(bit);
+            Object k = array[i];
+            Object v = array[i + 1];
+            if (k == null) {
+                Node child = ((Node) v).remove(shift + BITS, hash, key);
+                if (child == v) {
+                    return this;
+                }
+                if (child != null) {
+                    return new BitmapNode(bitmap, copyAndSet(array, i + 1, child));
+                }
+            } else if (!key.equals(k)) {
+                return this;
+            }
+            if (bitmap == bit) {
+                return null;
+            }
+            return new BitmapNode(bitmap ^ bit, copyAndRemovePair(array, i));
+        }
+
+        /**
+         * 用两个键值对创建下一层节点
+         */
+        private static Node createNode(int shift, Object key1, Object value1, int hash2, Object key2, Object value2) {
+            int hash1 = hash(key1);
+            if (hash1 == hash2) {
+                return new CollisionNode(hash1, new Object[]{key1, value1, key2, value2});
+            }
+            boolean[] added = new boolean[1];
+            return EMPTY.put(shift, hash1, key1, value1, added).put(shift, hash2, key2, value2, added);
+        }
+    }
+
+    /**
+     * 哈希值完全相同的键值对 依次存放
+     */
+    private static final class CollisionNode implements Node {
+
+        private final int hash;
+
+        private final Object[] array;
+
+        private CollisionNode(int hash, Object[] array) {
+            this.hash = hash;
+            this.array = array;
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (key.equals(array[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public Object find(int shift, int hash, Object key) {
+            if (hash != this.hash) {
+                return NOT_FOUND;
+            }
+            int i = indexOf(key);
+            return i < 0 ? NOT_FOUND : array[i + 1];
+        }
+
+        @Override
+        public Node put(int shift, int hash, Object key, Object value, boolean[] added) {
+            if (hash != this.hash) {
+                // 哈希值不同 用位图节点包装后再放入
+                return new BitmapNode(bitpos(this.hash, shift), new Object[]{null, this}).put(shift, hash, key, value, added);
+            }
+            int i = indexOf(key);
+            if (i >= 0) {
+                return array[i + 1] == value ? this : new CollisionNode(hash, copyAndSet(array, i + 1, value));
+            }
+            added[0] = true;
+            return new CollisionNode(hash, copyAndInsertPair(array, array.length, key, value));
+        }
+
+        @Override
+        public Node remove(int shift, int hash, Object key) {
+            if (hash != this.hash) {
+                return this;
+            }
+            int i = indexOf(key);
+            if (i < 0) {
+                return this;
+            }
+            return array.length == 2 ? null : new CollisionNode(hash, copyAndRemovePair(array, i));
+        }
+    }
+}
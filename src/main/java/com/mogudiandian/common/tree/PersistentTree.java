@@ -0,0 +1,785 @@
+package com.mogudiandian.common.tree;
+
+import com.mogudiandian.common.tree.AbstractTree.TraversingAction;
+import com.mogudiandian.common.tree.AbstractTree.TraversingLimit;
+
+import java.io.PrintStream;
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 持久化的不可变树/森林
+ * 每次修改（添加、移除、移动、修改值）都返回一个新的版本 旧版本保持不变 可以用于审计和撤销
+ * 修改时只复制从顶层到被修改节点的路径 未修改的子树在新旧版本间共享
+ * 子节点按唯一标识保存在持久化哈希表中 并用前后兄弟的唯一标识串成有序链表 所以复制一层只需要O(1)次哈希表修改 每次修改为O(深度)
+ * 节点之间没有父节点引用（否则无法共享） 父子关系另外保存在持久化哈希表中 用于按唯一标识定位节点
+ * 线程安全
+ *
+ * @param <V> 节点值类型
+ * @param <I> 节点唯一标识类型
+ * @author Joshua Sun
+ * @since 2023/7/24
+ */
+public final class PersistentTree<V, I> {
+
+    @SuppressWarnings("rawtypes")
+    private static final PersistentTree EMPTY = new PersistentTree<>(Node.leaf(null, null), PersistentHashMap.empty(), 0);
+
+    /**
+     * 虚拟的根节点 其子节点为顶层节点
+     */
+    private final Node<V, I> root;
+
+    /**
+     * 唯一标识 -> 父节点唯一标识 顶层节点的父节点唯一标识为null
+     */
+    private final PersistentHashMap<I, I> parents;
+
+    /**
+     * 版本号 每次修改加1
+     */
+    private final long version;
+
+    private PersistentTree(Node<V, I> root, PersistentHashMap<I, I> parents, long version) {
+        this.root = root;
+        this.parents = parents;
+        this.version = version;
+    }
+
+    /**
+     * 获取空的树
+     * @return 空的树
+     */
+    @SuppressWarnings("unchecked")
+    public static <V, I> PersistentTree<V, I> empty() {
+        return (PersistentTree<V, I>) EMPTY;
+    }
+
+    /**
+     * 从已有的树/森林创建 节点顺序保持一致 使用显式的栈后序构造 很深的树也不会栈溢出
+     * @param tree 树/森林
+     * @return 持久化的树
+     */
+    public static <V, I, N extends AbstractTreeNode<V, I, N>> PersistentTree<V, I> of(AbstractTree<V, I, N> tree) {
+        PersistentHashMap<I, I> parents = PersistentHashMap.empty();
+        Deque<CopyFrame<V, I, N>> stack = new ArrayDeque<>();
+        stack.push(new CopyFrame<>(null, tree.startNodes()));
+        Node<V, I> root = null;
+        while (root == null) {
+            CopyFrame<V, I, N> frame = stack.peek();
+            if (frame.children.hasNext()) {
+                N child = frame.children.next();
+                parents = parents.put(child.extractIdentifier(), frame.node == null ? null : frame.node.extractIdentifier());
+                stack.push(new CopyFrame<>(child, tree.children(child)));
+                continue;
+            }
+            // 子节点都已复制 构造当前节点
+            stack.pop();
+            Node<V, I> copied = frame.node == null ? Node.of(null, null, frame.copiedChildren) : Node.of(frame.node.getValue(), frame.node.extractIdentifier(), frame.copiedChildren);
+            if (stack.isEmpty()) {
+                root = copied;
+            } else {
+                stack.peek().copiedChildren.add(copied);
+            }
+        }
+        return new PersistentTree<>(root, parents, 0);
+    }
+
+    /**
+     * 添加节点 新节点排在兄弟节点的最后
+     * @param parentIdentifier 父节点唯一标识 为null时添加为顶层节点
+     * @param identifier 唯一标识
+     * @param value 值
+     * @return 新的版本
+     */
+    public PersistentTree<V, I> add(I parentIdentifier, I identifier, V value) {
+        Objects.requireNonNull(identifier, "identifier");
+        if (parents.containsKey(identifier)) {
+            throw new IllegalStateException("Found replicated node " + identifier);
+        }
+        Node<V, I> newRoot = insert(parentIdentifier, Node.leaf(value, identifier));
+        return new PersistentTree<>(newRoot, parents.put(identifier, parentIdentifier), version + 1);
+    }
+
+    /**
+     * 移除节点及其所有后代节点
+     * @param identifier 唯一标识
+     * @return 新的版本
+     */
+    public PersistentTree<V, I> remove(I identifier) {
+        Path<V, I> path = path(identifier);
+        Node<V, I> newRoot = path.replace(null);
+        PersistentHashMap<I, I> newParents = parents;
+        // 后代节点的父子关系也要移除 这部分与被移除的节点数量成正比
+        for (Node<V, I> node : flat(Collections.singletonList(path.target()), null, TraversingLimit.NONE)) {
+            newParents = newParents.remove(node.identifier);
+        }
+        return new PersistentTree<>(newRoot, newParents, version + 1);
+    }
+
+    /**
+     * 移动节点到新的父节点下 排在兄弟节点的最后 其子树整体共享不复制
+     * @param identifier 唯一标识
+     * @param newParentIdentifier 新的父节点唯一标识 为null时移动为顶层节点
+     * @return 新的版本
+     */
+    public PersistentTree<V, I> move(I identifier, I newParentIdentifier) {
+        for (I x = newParentIdentifier; x != null; x = parents.get(x)) {
+            if (x.equals(identifier)) {
+                throw new IllegalStateException("Cannot move node " + identifier + " under itself or its descendant " + newParentIdentifier);
+            }
+        }
+        Path<V, I> path = path(identifier);
+        // 先从原来的位置移除 新父节点不是被移动节点的后代 所以其路径仍然可以在中间版本中找到
+        PersistentTree<V, I> removed = new PersistentTree<>(path.replace(null), parents, version);
+        Node<V, I> newRoot = removed.insert(newParentIdentifier, path.target());
+        return new PersistentTree<>(newRoot, parents.put(identifier, newParentIdentifier), version + 1);
+    }
+
+    /**
+     * 修改节点的值
+     * @param identifier 唯一标识
+     * @param value 新的值
+     * @return 新的版本
+     */
+    public PersistentTree<V, I> setValue(I identifier, V value) {
+        Path<V, I> path = path(identifier);
+        Node<V, I> target = path.target();
+        if (target.value == value) {
+            return this;
+        }
+        Node<V, I> newRoot = path.replace(target.withValue(value));
+        return new PersistentTree<>(newRoot, parents, version + 1);
+    }
+
+    /**
+     * 将子树添加到父节点的最后
+     * @param parentIdentifier 父节点唯一标识 为null时添加为顶层节点
+     * @param child 子树
+     * @return 新的根节点
+     */
+    private Node<V, I> insert(I parentIdentifier, Node<V, I> child) {
+        if (parentIdentifier == null) {
+            return root.withLastChild(child);
+        }
+        Path<V, I> path = path(parentIdentifier);
+        return path.replace(path.target().withLastChild(child));
+    }
+
+    /**
+     * 定位节点 从节点向上找到所有祖先的唯一标识 再从根节点向下查找
+     * @param identifier 唯一标识
+     * @return 从根节点到该节点的路径
+     */
+    private Path<V, I> path(I identifier) {
+        Path<V, I> path = resolve(identifier);
+        if (path == null) {
+            throw new IllegalStateException("Cannot find node " + identifier);
+        }
+        return path;
+    }
+
+    /**
+     * 定位节点
+     * @param identifier 唯一标识
+     * @return 从根节点到该节点的路径 找不到时为null
+     */
+    private Path<V, I> resolve(I identifier) {
+        if (identifier == null || !parents.containsKey(identifier)) {
+            return null;
+        }
+        Deque<I> identifiers = new ArrayDeque<>();
+        for (I x = identifier; x != null; x = parents.get(x)) {
+            identifiers.push(x);
+        }
+        Path<V, I> path = new Path<>(identifiers.size() + 1);
+        Node<V, I> current = root;
+        path.nodes.add(current);
+        for (I x : identifiers) {
+            current = current.findChild(x);
+            if (current == null) {
+                return null;
+            }
+            path.nodes.add(current);
+        }
+        return path;
+    }
+
+    /**
+     * 根据唯一标识查找节点
+     * @param identifier 唯一标识
+     * @return 节点 找不到时为null
+     */
+    public Node<V, I> find(I identifier) {
+        Path<V, I> path = resolve(identifier);
+        return path == null ? null : path.target();
+    }
+
+    /**
+     * 是否包含节点
+     * @param identifier 唯一标识
+     * @return 是否包含
+     */
+    public boolean contains(I identifier) {
+        return identifier != null && parents.containsKey(identifier);
+    }
+
+    /**
+     * 获取父节点
+     * @param identifier 唯一标识
+     * @return 父节点 顶层节点或找不到时为null
+     */
+    public Node<V, I> getParent(I identifier) {
+        return contains(identifier) ? find(parents.get(identifier)) : null;
+    }
+
+    /**
+     * 获取层数
+     * @param identifier 唯一标识
+     * @return 层数 顶层为0 找不到时为-1
+     */
+    public int layerOf(I identifier) {
+        if (!contains(identifier)) {
+            return -1;
+        }
+        int layer = -1;
+        for (I x = identifier; x != null; x = parents.get(x)) {
+            layer++;
+        }
+        return layer;
+    }
+
+    /**
+     * 获取顶层节点
+     * @return 顶层节点 只读
+     */
+    public List<Node<V, I>> getTopNodes() {
+        return root.getChildren();
+    }
+
+    /**
+     * 限制深度和访问数量的深度优先遍历
+     * @param fromNodes 要从哪些节点开始遍历
+     * @param limit 遍历限制
+     * @param visitor 访问到节点执行的函数 参数为节点和相对于起始节点的深度 并返回是否遍历动作
+     */
+    private void traverse(Collection<Node<V, I>> fromNodes, TraversingLimit limit, BiFunction<Node<V, I>, Integer, TraversingAction> visitor) {
+        int maxDepth = limit.getMaxDepth();
+        int maxVisits = limit.getMaxVisits();
+        int visits = 0;
+        // 栈中每一层对应一层节点 所以栈的深度就是当前节点的深度 节点不可变 不需要复制子节点
+        Deque<Iterator<Node<V, I>>> stack = new ArrayDeque<>();
+        stack.push(fromNodes.iterator());
+        while (!stack.isEmpty()) {
+            Iterator<Node<V, I>> iterator = stack.peek();
+            if (!iterator.hasNext()) {
+                stack.pop();
+                continue;
+            }
+            if (maxVisits >= 0 && visits >= maxVisits) {
+                break;
+            }
+            Node<V, I> current = iterator.next();
+            visits++;
+            TraversingAction action = visitor.apply(current, stack.size() - 1);
+            if (action == TraversingAction.STOP) {
+                break;
+            }
+            if (action == TraversingAction.SKIP) {
+                continue;
+            }
+            if (maxDepth >= 0 && stack.size() > maxDepth) {
+                continue;
+            }
+            if (!current.isLeaf()) {
+                stack.push(current.childIterator());
+            }
+        }
+    }
+
+    /**
+     * 限制深度和访问数量的深度优先遍历
+     * @param fromNodes 要从哪些节点开始遍历
+     * @param limit 遍历限制
+     * @param visitor 访问到节点执行的函数 并返回是否遍历动作
+     */
+    public void dft(Collection<Node<V, I>> fromNodes, TraversingLimit limit, Function<Node<V, I>, TraversingAction> visitor) {
+        traverse(fromNodes, limit, (x, depth) -> visitor.apply(x));
+    }
+
+    /**
+     * 深度优先遍历
+     * @param fromNode 要从哪个节点开始遍历
+     * @param visitor 访问到节点执行的函数 并返回是否遍历动作
+     */
+    public void dft(Node<V, I> fromNode, Function<Node<V, I>, TraversingAction> visitor) {
+        dft(Collections.singletonList(fromNode), TraversingLimit.NONE, visitor);
+    }
+
+    /**
+     * 限制深度和访问数量的深度优先遍历整个树
+     * @param limit 遍历限制
+     * @param visitor 访问到节点执行的函数 并返回是否遍历动作
+     */
+    public void dft(TraversingLimit limit, Function<Node<V, I>, TraversingAction> visitor) {
+        dft(getTopNodes(), limit, visitor);
+    }
+
+    /**
+     * 深度优先遍历整个树
+     * @param visitor 访问到节点执行的函数 并返回是否遍历动作
+     */
+    public void dft(Function<Node<V, I>, TraversingAction> visitor) {
+        dft(TraversingLimit.NONE, visitor);
+    }
+
+    /**
+     * 深度优先遍历整个树 访问所有节点
+     * @param consumer 访问到节点执行的函数
+     */
+    public void dft(Consumer<Node<V, I>> consumer) {
+        dft(x -> {
+            consumer.accept(x);
+            return TraversingAction.CONTINUE;
+        });
+    }
+
+    /**
+     * 扁平化
+     * @param fromNodes 从哪些节点开始
+     * @param predicate 节点需要满足的谓词 为null时不过滤
+     * @param limit 遍历限制
+     * @return 深度优先顺序的节点列表
+     */
+    public List<Node<V, I>> flat(Collection<Node<V, I>> fromNodes, Predicate<Node<V, I>> predicate, TraversingLimit limit) {
+        List<Node<V, I>> list = new ArrayList<>();
+        dft(fromNodes, limit, x -> {
+            if (predicate == null || predicate.test(x)) {
+                list.add(x);
+            }
+            return TraversingAction.CONTINUE;
+        });
+        return list;
+    }
+
+    /**
+     * 扁平化整个树
+     * @param predicate 节点需要满足的谓词
+     * @return 深度优先顺序的节点列表
+     */
+    public List<Node<V, I>> flat(Predicate<Node<V, I>> predicate) {
+        return flat(getTopNodes(), predicate, TraversingLimit.NONE);
+    }
+
+    /**
+     * 扁平化整个树
+     * @return 深度优先顺序的节点列表
+     */
+    public List<Node<V, I>> flat() {
+        return flat(null);
+    }
+
+    /**
+     * 深度优先搜索
+     * @param fromNodes 从哪些节点开始
+     * @param predicate 节点需要满足的谓词
+     * @param limit 遍历限制
+     * @return 第一个满足谓词的节点 找不到时为null
+     */
+    public Node<V, I> dfs(Collection<Node<V, I>> fromNodes, Predicate<Node<V, I>> predicate, TraversingLimit limit) {
+        List<Node<V, I>> result = new ArrayList<>(1);
+        dft(fromNodes, limit, x -> {
+            if (predicate.test(x)) {
+                result.add(x);
+                return TraversingAction.STOP;
+            }
+            return TraversingAction.CONTINUE;
+        });
+        return result.isEmpty() ? null : result.get(0);
+    }
+
+    /**
+     * 深度优先搜索整个树
+     * @param predicate 节点需要满足的谓词
+     * @return 第一个满足谓词的节点 找不到时为null
+     */
+    public Node<V, I> dfs(Predicate<Node<V, I>> predicate) {
+        return dfs(getTopNodes(), predicate, TraversingLimit.NONE);
+    }
+
+    /**
+     * 输出树形结构
+     * @param printer 输出函数
+     * @param formatter 当前节点要输出的信息函数
+     * @param firstPrefix 第一个前缀
+     * @param otherPrefix 后续前缀
+     */
+    public void print(Consumer<String> printer, Function<Node<V, I>, String> formatter, String firstPrefix, String otherPrefix) {
+        traverse(getTopNodes(), TraversingLimit.NONE, (x, layer) -> {
+            StringBuilder stringBuilder = new StringBuilder();
+            for (int i = 0; i < layer; ) {
+                stringBuilder.append(firstPrefix != null ? firstPrefix : otherPrefix);
+                while (++i < layer) {
+                    stringBuilder.append(otherPrefix);
+                }
+            }
+            stringBuilder.append(formatter.apply(x));
+            printer.accept(stringBuilder.toString());
+            return TraversingAction.CONTINUE;
+        });
+    }
+
+    /**
+     * 输出树形结构
+     * @param printStream 输出流
+     * @param formatter 当前节点要输出的信息函数
+     * @param firstPrefix 第一个前缀
+     * @param otherPrefix 后续前缀
+     */
+    public void print(PrintStream printStream, Function<Node<V, I>, String> formatter, String firstPrefix, String otherPrefix) {
+        print(printStream::println, formatter, firstPrefix, otherPrefix);
+    }
+
+    /**
+     * 节点数量 O(1)
+     * @return 节点数量
+     */
+    public int size() {
+        return root.size - 1;
+    }
+
+    /**
+     * 是否为空
+     * @return 是否为空
+     */
+    public boolean isEmpty() {
+        return root.isLeaf();
+    }
+
+    /**
+     * 版本号 从空树或已有的树创建时为0 每次修改加1
+     * @return 版本号
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public String toString() {
+        return "PersistentTree{version=" + version + ", size=" + size() + "}";
+    }
+
+    /**
+     * 复制树时栈中的一帧
+     */
+    private static final class CopyFrame<V, I, N extends AbstractTreeNode<V, I, N>> {
+
+        /**
+         * 原来的节点 虚拟的根节点为null
+         */
+        private final N node;
+
+        /**
+         * 还未复制的子节点
+         */
+        private final Iterator<N> children;
+
+        /**
+         * 已复制的子节点
+         */
+        private final List<Node<V, I>> copiedChildren = new ArrayList<>();
+
+        private CopyFrame(N node, Collection<N> children) {
+            this.node = node;
+            this.children = children == null ? Collections.<N>emptyIterator() : new ArrayList<>(children).iterator();
+        }
+    }
+
+    /**
+     * 从根节点到某个节点的路径
+     */
+    private static final class Path<V, I> {
+
+        /**
+         * 路径上的节点 第0个为虚拟的根节点
+         */
+        private final List<Node<V, I>> nodes;
+
+        private Path(int length) {
+            this.nodes = new ArrayList<>(length);
+        }
+
+        private Node<V, I> target() {
+            return nodes.get(nodes.size() - 1);
+        }
+
+        /**
+         * 替换路径末端的节点 并逐层复制祖先节点
+         * @param replacement 新的节点 为null时移除
+         * @return 新的根节点
+         */
+        private Node<V, I> replace(Node<V, I> replacement) {
+            Node<V, I> current = replacement;
+            for (int k = nodes.size() - 2; k >= 0; k--) {
+                current = current == null ? nodes.get(k).withoutChild(nodes.get(k + 1).identifier) : nodes.get(k).withChild(current);
+            }
+            return current;
+        }
+    }
+
+    /**
+     * 子节点在兄弟链表中的位置
+     *
+     * @param <V> 节点值类型
+     * @param <I> 节点唯一标识类型
+     */
+    private static final class Sibling<V, I> {
+
+        private final Node<V, I> node;
+
+        /**
+         * 前一个兄弟节点的唯一标识 第一个子节点为null
+         */
+        private final I previous;
+
+        /**
+         * 后一个兄弟节点的唯一标识 最后一个子节点为null
+         */
+        private final I next;
+
+        private Sibling(Node<V, I> node, I previous, I next) {
+            this.node = node;
+            this.previous = previous;
+            this.next = next;
+        }
+    }
+
+    /**
+     * 不可变的节点 可以被多个版本共享
+     *
+     * @param <V> 节点值类型
+     * @param <I> 节点唯一标识类型
+     */
+    public static final class Node<V, I> {
+
+        /**
+         * 值
+         */
+        private final V value;
+
+        /**
+         * 唯一标识
+         */
+        private final I identifier;
+
+        /**
+         * 子节点唯一标识 -> 子节点及其前后兄弟
+         */
+        private final PersistentHashMap<I, Sibling<V, I>> children;
+
+        /**
+         * 第一个子节点的唯一标识
+         */
+        private final I firstChild;
+
+        /**
+         * 最后一个子节点的唯一标识
+         */
+        private final I lastChild;
+
+        /**
+         * 子树的节点数量 包括自身
+         */
+        private final int size;
+
+        private Node(V value, I identifier, PersistentHashMap<I, Sibling<V, I>> children, I firstChild, I lastChild, int size) {
+            this.value = value;
+            this.identifier = identifier;
+            this.children = children;
+            this.firstChild = firstChild;
+            this.lastChild = lastChild;
+            this.size = size;
+        }
+
+        /**
+         * 创建叶子节点
+         */
+        private static <V, I> Node<V, I> leaf(V value, I identifier) {
+            return new Node<>(value, identifier, PersistentHashMap.empty(), null, null, 1);
+        }
+
+        /**
+         * 按顺序创建有子节点的节点
+         */
+        private static <V, I> Node<V, I> of(V value, I identifier, List<Node<V, I>> childList) {
+            PersistentHashMap<I, Sibling<V, I>> children = PersistentHashMap.empty();
+            int size = 1;
+            for (int i = 0, count = childList.size(); i < count; i++) {
+                Node<V, I> child = childList.get(i);
+                I previous = i == 0 ? null : childList.get(i - 1).identifier;
+                I next = i == count - 1 ? null : childList.get(i + 1).identifier;
+                children = children.put(child.identifier, new Sibling<>(child, previous, next));
+                size += child.size;
+            }
+            if (childList.isEmpty()) {
+                return new Node<>(value, identifier, children, null, null, size);
+            }
+            return new Node<>(value, identifier, children, childList.get(0).identifier, childList.get(childList.size() - 1).identifier, size);
+        }
+
+        /**
+         * 复制当前节点并修改值
+         */
+        private Node<V, I> withValue(V newValue) {
+            return new Node<>(newValue, identifier, children, firstChild, lastChild, size);
+        }
+
+        /**
+         * 复制当前节点 并替换唯一标识相同的子节点 位置不变
+         * @param child 新的子节点
+         * @return 新的节点
+         */
+        private Node<V, I> withChild(Node<V, I> child) {
+            Sibling<V, I> sibling = children.get(child.identifier);
+            return new Node<>(value, identifier, children.put(child.identifier, new Sibling<>(child, sibling.previous, sibling.next)),
+                              firstChild, lastChild, size - sibling.node.size + child.size);
+        }
+
+        /**
+         * 复制当前节点 并在最后添加子节点
+         * @param child 新的子节点
+         * @return 新的节点
+         */
+        private Node<V, I> withLastChild(Node<V, I> child) {
+            PersistentHashMap<I, Sibling<V, I>> newChildren = children.put(child.identifier, new Sibling<>(child, lastChild, null));
+            if (lastChild == null) {
+                return new Node<>(value, identifier, newChildren, child.identifier, child.identifier, size + child.size);
+            }
+            Sibling<V, I> last = children.get(lastChild);
+            newChildren = newChildren.put(lastChild, new Sibling<>(last.node, last.previous, child.identifier));
+            return new Node<>(value, identifier, newChildren, firstChild, child.identifier, size + child.size);
+        }
+
+        /**
+         * 复制当前节点 并移除子节点 前后兄弟节点重新连接
+         * @param childIdentifier 子节点唯一标识
+         * @return 新的节点
+         */
+        private Node<V, I> withoutChild(I childIdentifier) {
+            Sibling<V, I> sibling = children.get(childIdentifier);
+            PersistentHashMap<I, Sibling<V, I>> newChildren = children.remove(childIdentifier);
+            if (sibling.previous != null) {
+                Sibling<V, I> previous = newChildren.get(sibling.previous);
+                newChildren = newChildren.put(sibling.previous, new Sibling<>(previous.node, previous.previous, sibling.next));
+            }
+            if (sibling.next != null) {
+                Sibling<V, I> next = newChildren.get(sibling.next);
+                newChildren = newChildren.put(sibling.next, new Sibling<>(next.node, sibling.previous, next.next));
+            }
+            return new Node<>(value, identifier, newChildren,
+                              sibling.previous == null ? sibling.next : firstChild,
+                              sibling.next == null ? sibling.previous : lastChild,
+                              size - sibling.node.size);
+        }
+
+        /**
+         * 根据唯一标识获取子节点
+         * @param childIdentifier 子节点唯一标识
+         * @return 子节点 找不到时为null
+         */
+        private Node<V, I> findChild(I childIdentifier) {
+            Sibling<V, I> sibling = children.get(childIdentifier);
+            return sibling == null ? null : sibling.node;
+        }
+
+        /**
+         * 按顺序迭代子节点
+         */
+        private Iterator<Node<V, I>> childIterator() {
+            return new Iterator<Node<V, I>>() {
+                private I next = firstChild;
+
+                @Override
+                public boolean hasNext() {
+                    return next != null;
+                }
+
+                @Override
+                public Node<V, I> next() {
+                    if (next == null) {
+                        throw new NoSuchElementException();
+                    }
+                    Sibling<V, I> sibling = children.get(next);
+                    next = sibling.next;
+                    return sibling.node;
+                }
+            };
+        }
+
+        public V getValue() {
+            return value;
+        }
+
+        public I getIdentifier() {
+            return identifier;
+        }
+
+        /**
+         * 获取子节点 需要从第一个子节点依次向后查找 O(下标)
+         * @param index 下标
+         * @return 子节点
+         */
+        public Node<V, I> getChild(int index) {
+            if (index < 0 || index >= childCount()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + childCount());
+            }
+            Iterator<Node<V, I>> iterator = childIterator();
+            for (int i = 0; i < index; i++) {
+                iterator.next();
+            }
+            return iterator.next();
+        }
+
+        /**
+         * 获取所有子节点
+         * @return 子节点 只读
+         */
+        public List<Node<V, I>> getChildren() {
+            List<Node<V, I>> list = new ArrayList<>(childCount());
+            childIterator().forEachRemaining(list::add);
+            return Collections.unmodifiableList(list);
+        }
+
+        /**
+         * 子节点数量
+         * @return 子节点数量
+         */
+        public int childCount() {
+            return children.size();
+        }
+
+        /**
+         * 是否为叶子节点
+         * @return 是否为叶子节点
+         */
+        public boolean isLeaf() {
+            return firstChild == null;
+        }
+
+        /**
+         * 子树的节点数量
+         * @return 节点数量 包括自身
+         */
+        public int subtreeSize() {
+            return size;
+        }
+
+        @Override
+        public String toString() {
+            return "Node{identifier=" + identifier + ", value=" + value + "}";
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.mogudiandian.common.tree;
+
+import java.util.Comparator;
+
+/**
+ * 有序的可按下标访问的Set
+ * 添加时直接追加 到下次按下标访问或迭代时才统一排序（稳定排序） 比较结果相等但不重复的元素都会保留 按添加的先后排列
+ * 所以树化时逐个添加n个子节点总共为O(n log n) 按顺序追加的元素不会触发排序
+ * 非线程安全
+ *
+ * @param <E> 元素类型
+ * @author Joshua Sun
+ * @since 2023/7/24
+ */
+public class SortedIndexedSet<E> extends IndexedSet<E> {
+
+    /**
+     * 比较器
+     */
+    private Comparator<? super E> comparator;
+
+    /**
+     * elements是否已按比较器排好序
+     */
+    private boolean sorted = true;
+
+    /**
+     * 使用元素的自然顺序 元素需要实现Comparable
+     */
+    @SuppressWarnings("unchecked")
+    public SortedIndexedSet() {
+        this((x, y) -> ((Comparable<? super E>) x).compareTo(y));
+    }
+
+    /**
+     * 使用比较器排序
+     * @param comparator 比较器
+     */
+    public SortedIndexedSet(Comparator<? super E> comparator) {
+        this.comparator = comparator;
+    }
+
+    @Override
+    public boolean add(E e) {
+        if (!super.add(e)) {
+            return false;
+        }
+        // 只有比最后一个元素小时才需要排序
+        int size = elements.size();
+        if (sorted && size > 1) {
+            E last = elements.get(size - 2);
+            if (last == null || comparator.compare(last, e) > 0) {
+                sorted = false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 改为按新的比较器排序 之后添加的元素也按新的比较器排列
+     * @param comparator 比较器
+     */
+    @Override
+    public void sort(Comparator<? super E> comparator) {
+        this.comparator = comparator;
+        sorted = false;
+        settle();
+    }
+
+    @Override
+    protected void settle() {
+        super.settle();
+        if (!sorted) {
+            sortElements(comparator);
+            sorted = true;
+        }
+    }
+
+    /**
+     * 获取比较器
+     * @return 比较器
+     */
+    public Comparator<? super E> getComparator() {
+        return comparator;
+    }
+}
@@ -0,0 +1,133 @@
+package com.mogudiandian.common.tree;
+
+import java.util.Collection;
+
+/**
+ * 子树视图 以树上的某个节点为根 不复制节点也不改变节点关系
+ * 子树的遍历、查找、输出都只在该节点及其后代中进行 输出时层级从子树的根开始计算
+ * 非线程安全
+ *
+ * @param <V> 节点值类型
+ * @param <I> 节点唯一标识类型
+ * @param <N> 节点类型
+ * @author Joshua Sun
+ * @since 2023/7/24
+ */
+public class SubTree<V, I, N extends AbstractTreeNode<V, I, N>> extends AbstractTree<V, I, N> {
+
+    /**
+     * 所在的树 独立的子树为null
+     */
+    private final AbstractTree<V, I, N> source;
+
+    /**
+     * 节点数量 第一次获取时计算 小于0表示未计算
+     */
+    private int cachedSize = -1;
+
+    /**
+     * 构造子树视图
+     * @param source 所在的树 为null时表示独立的子树
+     * @param root 子树的根节点
+     */
+    public SubTree(AbstractTree<V, I, N> source, N root) {
+        super(Type.TREE, root, null, 0);
+        this.source = source;
+    }
+
+    /**
+     * 获取所在的树
+     * @return 所在的树 独立的子树返回null
+     */
+    public AbstractTree<V, I, N> getSource() {
+        return source;
+    }
+
+    /**
+     * 获取子树的根节点
+     * @return 根节点
+     */
+    public N getRoot() {
+        return root;
+    }
+
+    /**
+     * 根据唯一标识查找节点 视图时使用所在的树的索引 再判断是否在子树中
+     * @param identifier 唯一标识
+     * @return 查找到的节点 找不到则返回null
+     */
+    @Override
+    public N find(I identifier) {
+        if (source == null) {
+            return super.find(identifier);
+        }
+        N node = source.find(identifier);
+        return contains(node) ? node : null;
+    }
+
+    /**
+     * 节点是否在子树中 即是子树的根节点或其后代节点
+     * @param node 节点
+     * @return 是否在子树中
+     */
+    private boolean contains(N node) {
+        for (N current = node; current != null; current = current.getParent()) {
+            if (current == root) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 嫁接 视图时嫁接到所在的树上 只能嫁接到子树中的节点下
+     * @param parent 嫁接到哪个节点下
+     * @param other 另一个树/森林
+     * @param duplicatePolicy 唯一标识重复时的策略
+     */
+    @Override
+    public void graft(N parent, AbstractTree<V, I, N> other, DuplicatePolicy duplicatePolicy) {
+        if (parent != null && !contains(parent)) {
+            throw new IllegalArgumentException("Node " + parent + " is not in this subtree");
+        }
+        if (source == null) {
+            super.graft(parent, other, duplicatePolicy);
+        } else {
+            source.graft(parent, other, duplicatePolicy);
+        }
+        cachedSize = -1;
+    }
+
+    @Override
+    protected Collection<N> children(N node) {
+        return source == null ? super.children(node) : source.children(node);
+    }
+
+    @Override
+    protected int layerOf(N node) {
+        return node.getLayer() - root.getLayer();
+    }
+
+    /**
+     * 摘除子树 视图时从所在的树中摘除 只能摘除子树中的节点
+     * @param node 子树的根节点
+     * @return 摘除后的独立的树
+     */
+    @Override
+    public SubTree<V, I, N> detach(N node) {
+        if (!contains(node)) {
+            throw new IllegalArgumentException("Node " + node + " is not in this subtree");
+        }
+        SubTree<V, I, N> subTree = source == null ? super.detach(node) : source.detach(node);
+        cachedSize = -1;
+        return subTree;
+    }
+
+    @Override
+    public int cachedSize() {
+        if (cachedSize < 0) {
+            cachedSize = size();
+        }
+        return cachedSize;
+    }
+}
@@ -0,0 +1,462 @@
+package com.mogudiandian.common.tree;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 树缓存
+ * 同一个key同时只会构造一次树 其它线程等待同一个结果
+ * 超过刷新时间后在后台重新构造 构造完成前读取到的仍然是旧的树 超过过期时间后同步重新构造
+ * 后台刷新失败时保留旧的树 等待一个刷新时间后再重试 避免每次读取都触发构造
+ * 已过期的树在读取和构造时定期清除 每个过期时间内最多清除一次 也可以调用cleanUp主动清除
+ * 数量超过上限时优先淘汰已过期的 然后淘汰最久未访问的
+ * 缓存本身是线程安全的 但树不是线程安全的 从缓存中取到的树应只读
+ *
+ * @param <K> key类型 例如租户
+ * @param <T> 树类型
+ * @author Joshua Sun
+ * @since 2023/7/24
+ */
+public class TreeCache<K, T extends AbstractTree<?, ?, ?>> {
+
+    /**
+     * 构造树的函数
+     */
+    private final Function<? super K, ? extends T> builder;
+
+    /**
+     * 最多缓存的树的数量 小于等于0表示不限制
+     */
+    private final int maximumSize;
+
+    /**
+     * 构造后多久在后台刷新 单位毫秒 小于等于0表示不刷新
+     */
+    private final long refreshAfterMillis;
+
+    /**
+     * 构造后多久过期 单位毫秒 小于等于0表示不过期
+     */
+    private final long expireAfterMillis;
+
+    /**
+     * 后台刷新使用的线程池
+     */
+    private final Executor executor;
+
+    /**
+     * 缓存项
+     */
+    private final ConcurrentMap<K, Entry<T>> entries = new ConcurrentHashMap<>();
+
+    /**
+     * 下次清除已过期的树的时间
+     */
+    private final AtomicLong nextCleanUpTime = new AtomicLong();
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder buildCount = new LongAdder();
+
+    private final LongAdder buildFailureCount = new LongAdder();
+
+    private final LongAdder totalBuildNanos = new LongAdder();
+
+    private final LongAdder refreshCount = new LongAdder();
+
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * 构造树缓存 后台刷新使用公共线程池
+     * @param nodeSource 根据key获取未树化的节点集合的函数
+     * @param treeFactory 根据节点集合构造树的函数
+     * @param maximumSize 最多缓存的树的数量 小于等于0表示不限制
+     * @param refreshAfterMillis 构造后多久在后台刷新 单位毫秒 小于等于0表示不刷新
+     * @param expireAfterMillis 构造后多久过期 单位毫秒 小于等于0表示不过期
+     * @param <C> 节点集合类型
+     */
+    public <C extends Collection<?>> TreeCache(Function<? super K, ? extends C> nodeSource, Function<? super C, ? extends T> treeFactory,
+                                               int maximumSize, long refreshAfterMillis, long expireAfterMillis) {
+        this(nodeSource, treeFactory, maximumSize, refreshAfterMillis, expireAfterMillis, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 构造树缓存
+     * @param nodeSource 根据key获取未树化的节点集合的函数
+     * @param treeFactory 根据节点集合构造树的函数
+     * @param maximumSize 最多缓存的树的数量 小于等于0表示不限制
+     * @param refreshAfterMillis 构造后多久在后台刷新 单位毫秒 小于等于0表示不刷新
+     * @param expireAfterMillis 构造后多久过期 单位毫秒 小于等于0表示不过期
+     * @param executor 后台刷新使用的线程池
+     * @param <C> 节点集合类型
+     */
+    public <C extends Collection<?>> TreeCache(Function<? super K, ? extends C> nodeSource, Function<? super C, ? extends T> treeFactory,
+                                               int maximumSize, long refreshAfterMillis, long expireAfterMillis, Executor executor) {
+        this.builder = nodeSource.andThen(treeFactory);
+        this.maximumSize = maximumSize;
+        this.refreshAfterMillis = refreshAfterMillis;
+        this.expireAfterMillis = expireAfterMillis;
+        this.executor = executor;
+    }
+
+    /**
+     * 获取树 不存在或已过期时同步构造 需要刷新时在后台构造并返回旧的树
+     * @param key key
+     * @return 树
+     */
+    public T get(K key) {
+        long now = System.currentTimeMillis();
+        cleanUpIfNecessary(now);
+        Entry<T> entry = entries.computeIfAbsent(key, k -> new Entry<>());
+        T tree = entry.tree;
+        if (tree != null && !isExpired(entry, now)) {
+            hitCount.increment();
+            entry.accessTime = now;
+            if (refreshAfterMillis > 0 && now >= entry.nextRefreshTime) {
+                build(key, entry, true);
+            }
+            return tree;
+        }
+        missCount.increment();
+        entry.accessTime = now;
+        try {
+            return build(key, entry, false).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 获取已缓存的树 不会构造
+     * @param key key
+     * @return 树 不存在或已过期返回null
+     */
+    public T getIfPresent(K key) {
+        Entry<T> entry = entries.get(key);
+        if (entry == null || entry.tree == null || isExpired(entry, System.currentTimeMillis())) {
+            return null;
+        }
+        return entry.tree;
+    }
+
+    /**
+     * 获取树的版本 每次构造成功后加1
+     * @param key key
+     * @return 版本 不存在返回0
+     */
+    public long getVersion(K key) {
+        Entry<T> entry = entries.get(key);
+        return entry == null ? 0 : entry.version;
+    }
+
+    /**
+     * 在后台刷新树 刷新完成前读取到的仍然是旧的树
+     * @param key key
+     * @return 刷新后的树
+     */
+    public CompletableFuture<T> refresh(K key) {
+        return build(key, entries.computeIfAbsent(key, k -> new Entry<>()), true);
+    }
+
+    /**
+     * 使树失效
+     * @param key key
+     */
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * 使所有树失效
+     */
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    /**
+     * 清除已过期的树
+     */
+    public void cleanUp() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.tree != null && isExpired(entry, now) && entry.building == null);
+    }
+
+    /**
+     * 距离上次清除超过过期时间时清除已过期的树 同一时间只有一个线程清除
+     * @param now 当前时间
+     */
+    private void cleanUpIfNecessary(long now) {
+        if (expireAfterMillis <= 0) {
+            return;
+        }
+        long next = nextCleanUpTime.get();
+        if (now >= next && nextCleanUpTime.compareAndSet(next, now + expireAfterMillis)) {
+            cleanUp();
+        }
+    }
+
+    /**
+     * 获取缓存的树的数量
+     * @return 数量
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * 获取统计信息
+     * @return 统计信息
+     */
+    public Stats getStats() {
+        return new Stats(hitCount.sum(), missCount.sum(), buildCount.sum(), buildFailureCount.sum(), totalBuildNanos.sum(), refreshCount.sum(), evictionCount.sum());
+    }
+
+    /**
+     * 构造树 同一个缓存项同时只会有一个构造任务
+     * @param key key
+     * @param entry 缓存项
+     * @param async 是否在后台构造
+     * @return 构造结果
+     */
+    private CompletableFuture<T> build(K key, Entry<T> entry, boolean async) {
+        CompletableFuture<T> future;
+        synchronized (entry) {
+            if (entry.building != null) {
+                return entry.building;
+            }
+            future = entry.building = new CompletableFuture<>();
+        }
+        Runnable task = () -> doBuild(key, entry, future);
+        if (!async) {
+            task.run();
+            return future;
+        }
+        refreshCount.increment();
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            synchronized (entry) {
+                entry.building = null;
+            }
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * 执行构造
+     * @param key key
+     * @param entry 缓存项
+     * @param future 构造结果
+     */
+    private void doBuild(K key, Entry<T> entry, CompletableFuture<T> future) {
+        long start = System.nanoTime();
+        try {
+            T tree = builder.apply(key);
+            synchronized (entry) {
+                entry.tree = tree;
+                entry.version++;
+                entry.buildTime = System.currentTimeMillis();
+                entry.nextRefreshTime = entry.buildTime + refreshAfterMillis;
+                entry.building = null;
+            }
+            buildCount.increment();
+            future.complete(tree);
+        } catch (Throwable e) {
+            buildFailureCount.increment();
+            synchronized (entry) {
+                // 等待一个刷新时间后再重试 期间继续使用旧的树
+                entry.nextRefreshTime = System.currentTimeMillis() + refreshAfterMillis;
+                entry.building = null;
+            }
+            // 从来没有构造成功的缓存项直接移除 下次重新构造
+            if (entry.tree == null) {
+                entries.remove(key, entry);
+            }
+            future.completeExceptionally(e);
+        } finally {
+            totalBuildNanos.add(System.nanoTime() - start);
+        }
+        cleanUpIfNecessary(System.currentTimeMillis());
+        evictIfNecessary();
+    }
+
+    /**
+     * 数量超过上限时淘汰 优先淘汰已过期的 然后淘汰最久未访问的
+     */
+    private void evictIfNecessary() {
+        if (maximumSize <= 0 || entries.size() <= maximumSize) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (Iterator<Entry<T>> iterator = entries.values().iterator(); iterator.hasNext(); ) {
+            Entry<T> entry = iterator.next();
+            if (entry.tree != null && isExpired(entry, now) && entry.building == null) {
+                iterator.remove();
+                evictionCount.increment();
+            }
+        }
+        while (entries.size() > maximumSize) {
+            Map.Entry<K, Entry<T>> eldest = null;
+            for (Map.Entry<K, Entry<T>> mapEntry : entries.entrySet()) {
+                Entry<T> entry = mapEntry.getValue();
+                if (entry.tree != null && entry.building == null && (eldest == null || entry.accessTime < eldest.getValue().accessTime)) {
+                    eldest = mapEntry;
+                }
+            }
+            if (eldest == null) {
+                break;
+            }
+            if (entries.remove(eldest.getKey(), eldest.getValue())) {
+                evictionCount.increment();
+            }
+        }
+    }
+
+    /**
+     * 缓存项是否已过期
+     * @param entry 缓存项
+     * @param now 当前时间
+     * @return 是否已过期
+     */
+    private boolean isExpired(Entry<T> entry, long now) {
+        return expireAfterMillis > 0 && now - entry.buildTime >= expireAfterMillis;
+    }
+
+    /**
+     * 缓存项
+     * @param <T> 树类型
+     */
+    private static class Entry<T> {
+
+        /**
+         * 当前的树 未构造成功时为null
+         */
+        private volatile T tree;
+
+        /**
+         * 版本 每次构造成功后加1
+         */
+        private volatile long version;
+
+        /**
+         * 最近一次构造成功的时间
+         */
+        private volatile long buildTime;
+
+        /**
+         * 下次在后台刷新的时间 构造成功或失败后更新
+         */
+        private volatile long nextRefreshTime;
+
+        /**
+         * 最近一次访问的时间
+         */
+        private volatile long accessTime;
+
+        /**
+         * 正在进行的构造
+         */
+        private volatile CompletableFuture<T> building;
+    }
+
+    /**
+     * 统计信息
+     */
+    public static class Stats {
+
+        private final long hitCount;
+
+        private final long missCount;
+
+        private final long buildCount;
+
+        private final long buildFailureCount;
+
+        private final long totalBuildNanos;
+
+        private final long refreshCount;
+
+        private final long evictionCount;
+
+        public Stats(long hitCount, long missCount, long buildCount, long buildFailureCount, long totalBuildNanos, long refreshCount, long evictionCount) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.buildCount = buildCount;
+            this.buildFailureCount = buildFailureCount;
+            this.totalBuildNanos = totalBuildNanos;
+            this.refreshCount = refreshCount;
+            this.evictionCount = evictionCount;
+        }
+
+        /**
+         * 获取命中率
+         * @return 命中率 没有请求时返回1
+         */
+        public double hitRate() {
+            long requestCount = hitCount + missCount;
+            return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+        }
+
+        /**
+         * 获取平均构造时间
+         * @return 平均构造时间 单位纳秒
+         */
+        public double averageBuildNanos() {
+            long count = buildCount + buildFailureCount;
+            return count == 0 ? 0.0 : (double) totalBuildNanos / count;
+        }
+
+        public long getHitCount() {
+            return hitCount;
+        }
+
+        public long getMissCount() {
+            return missCount;
+        }
+
+        public long getBuildCount() {
+            return buildCount;
+        }
+
+        public long getBuildFailureCount() {
+            return buildFailureCount;
+        }
+
+        public long getTotalBuildNanos() {
+            return totalBuildNanos;
+        }
+
+        public long getRefreshCount() {
+            return refreshCount;
+        }
+
+        public long getEvictionCount() {
+            return evictionCount;
+        }
+
+        @Override
+        public String toString() {
+            return new StringJoiner(", ", Stats.class.getSimpleName() + "[", "]")
+                    .add("hitCount=" + hitCount)
+                    .add("missCount=" + missCount)
+                    .add("buildCount=" + buildCount)
+                    .add("buildFailureCount=" + buildFailureCount)
+                    .add("totalBuildNanos=" + totalBuildNanos)
+                    .add("refreshCount=" + refreshCount)
+                    .add("evictionCount=" + evictionCount)
+                    .toString();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.mogudiandian.common.tree;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 节点值的编解码器 用于堆外树将节点值保存在堆外
+ *
+ * @param <V> 节点值类型
+ * @author Joshua Sun
+ * @since 2023/7/24
+ */
+public interface ValueCodec<V> {
+
+    /**
+     * 编码
+     * @param value 节点值 不为null
+     * @return 编码后的字节
+     */
+    byte[] encode(V value);
+
+    /**
+     * 解码
+     * @param buffer 只读的缓冲区 position到limit之间为编码后的字节
+     * @return 节点值
+     */
+    V decode(ByteBuffer buffer);
+
+}
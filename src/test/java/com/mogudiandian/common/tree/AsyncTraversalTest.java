@@ -0,0 +1,168 @@
+package com.mogudiandian.common.tree;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+/**
+ * 测试异步遍历
+ *
+ * @author Joshua Sun
+ * @since 2023/7/24
+ */
+public class AsyncTraversalTest {
+
+    public static void main(String[] args) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            DepartmentTree departmentTree = departmentTree();
+            List<String> expected = new ArrayList<>();
+            departmentTree.flat().forEach(x -> expected.add(x.getValue().id));
+
+            // 同一线程执行时按深度优先的顺序访问
+            List<String> visited = visitAll(departmentTree, Runnable::run, 1);
+            assertEquals(expected, visited, "same thread visits in depth-first order");
+
+            // 线程池执行时每个节点恰好访问一次
+            visited = visitAll(departmentTree, pool, 4);
+            assertEquals(new TreeSet<>(expected), new TreeSet<>(visited), "pool visits every node");
+            assertEquals(expected.size(), visited.size(), "pool visits each node once");
+
+            // SKIP不访问子节点 STOP后不再访问新的节点
+            List<String> skipped = Collections.synchronizedList(new ArrayList<>());
+            departmentTree.dftAsync(x -> {
+                skipped.add(x.getValue().id);
+                return CompletableFuture.completedFuture(x.getValue().parentId == null ? AbstractTree.TraversingAction.SKIP : AbstractTree.TraversingAction.CONTINUE);
+            }, 2, pool).get(10, TimeUnit.SECONDS);
+            assertEquals(Arrays.asList("tech", "opr", "admin", "boss"), skipped, "skipped children");
+            List<String> stopped = new ArrayList<>();
+            departmentTree.dftAsync(x -> {
+                stopped.add(x.getValue().id);
+                return CompletableFuture.completedFuture(stopped.size() == 3 ? AbstractTree.TraversingAction.STOP : AbstractTree.TraversingAction.CONTINUE);
+            }, 1, Runnable::run).get(10, TimeUnit.SECONDS);
+            assertEquals(expected.subList(0, 3), stopped, "stopped after third node");
+
+            // 访问函数抛出异常时以该异常完成
+            CompletableFuture<Void> failed = departmentTree.dftAsync(x -> {
+                throw new IllegalStateException("visit failed");
+            }, 2, Runnable::run);
+            try {
+                failed.get(10, TimeUnit.SECONDS);
+                throw new AssertionError("failed traversal should complete exceptionally");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IllegalStateException, "failure cause");
+            }
+
+            // 同一线程执行大量节点时不会栈溢出
+            int count = 100000;
+            List<TreeTest.Department> wide = new ArrayList<>(count + 1);
+            wide.add(new TreeTest.Department("root", "root", null));
+            for (int i = 0; i < count; i++) {
+                wide.add(new TreeTest.Department("n" + i, "n" + i, "root"));
+            }
+            DepartmentTree wideTree = departmentTree(wide);
+            assertEquals(count + 1, visitAll(wideTree, Runnable::run, 1).size(), "wide tree on same thread");
+            assertEquals(count + 1, new HashSet<>(visitAll(wideTree, pool, 8)).size(), "wide tree on pool");
+
+            List<TreeTest.Department> chain = new ArrayList<>(count);
+            chain.add(new TreeTest.Department("n0", "n0", null));
+            for (int i = 1; i < count; i++) {
+                chain.add(new TreeTest.Department("n" + i, "n" + i, "n" + (i - 1)));
+            }
+            assertEquals(count, visitAll(departmentTree(chain), Runnable::run, 4).size(), "deep tree on same thread");
+        } finally {
+            pool.shutdown();
+        }
+        System.out.println("AsyncTraversalTest passed");
+    }
+
+    private static List<String> visitAll(DepartmentTree tree, Executor executor, int parallelism) throws Exception {
+        List<String> visited = Collections.synchronizedList(new ArrayList<>());
+        tree.dftAsync(x -> {
+            visited.add(x.getValue().id);
+            return CompletableFuture.completedFuture(AbstractTree.TraversingAction.CONTINUE);
+        }, parallelism, executor).get(60, TimeUnit.SECONDS);
+        return visited;
+    }
+
+    /**
+     * 测试用的部门
+     * @return 部门列表 每次返回新的列表
+     */
+    private static List<TreeTest.Department> departments() {
+        List<TreeTest.Department> list = new ArrayList<>();
+
+        list.add(new TreeTest.Department("tech", "产品研发中心", null));
+        list.add(new TreeTest.Department("opr", "运营中心", null));
+        list.add(new TreeTest.Department("admin", "行政中心", null));
+        list.add(new TreeTest.Department("boss", "总裁办", null));
+        list.add(new TreeTest.Department("product", "产品部", "tech"));
+        list.add(new TreeTest.Department("develop", "研发部", "tech"));
+        list.add(new TreeTest.Department("product-mw", "中台产品部", "product"));
+        list.add(new TreeTest.Department("tech-be", "后台研发部", "develop"));
+        list.add(new TreeTest.Department("tech-mw", "中台研发部", "develop"));
+        list.add(new TreeTest.Department("tech-fe", "前台研发部", "develop"));
+        list.add(new TreeTest.Department("sec", "秘书部", "boss"));
+        list.add(new TreeTest.Department("admin2", "行政部", "admin"));
+        list.add(new TreeTest.Department("hr", "人力资源部", "admin"));
+        list.add(new TreeTest.Department("job", "招聘组", "hr"));
+        list.add(new TreeTest.Department("salary", "薪酬组", "hr"));
+        list.add(new TreeTest.Department("opr-sku", "商品运营部", "opr"));
+        list.add(new TreeTest.Department("opr-act", "活动运营部", "opr"));
+        list.add(new TreeTest.Department("opr-mw", "中台运营部", "opr"));
+
+        return list;
+    }
+
+    private static DepartmentTree departmentTree(List<TreeTest.Department> list) {
+        return new DepartmentTree(list.stream()
+                                      .map(DepartmentTreeNode::new)
+                                      .collect(Collectors.toList()));
+    }
+
+    private static DepartmentTree departmentTree() {
+        return departmentTree(departments());
+    }
+
+    private static void assertEquals(Object expected, Object actual, String message) {
+        if (!Objects.equals(expected, actual)) {
+            throw new AssertionError(message + ": expected <" + expected + "> but was <" + actual + ">");
+        }
+    }
+
+    private static void assertTrue(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    private static class DepartmentTreeNode extends AbstractTreeNode<TreeTest.Department, String, DepartmentTreeNode> {
+
+        public DepartmentTreeNode(TreeTest.Department value) {
+            super(value);
+        }
+
+        @Override
+        protected boolean isTopNode() {
+            return value.parentId == null;
+        }
+
+        @Override
+        protected String extractIdentifier() {
+            return value.id;
+        }
+
+        @Override
+        protected String extractParentIdentifier() {
+            return value.parentId;
+        }
+    }
+
+    private static class DepartmentTree extends AbstractTree<TreeTest.Department, String, DepartmentTreeNode> {
+
+        public <C extends Collection<DepartmentTreeNode>> DepartmentTree(C nodes) {
+            super(nodes, true, OrphanPolicy.TOP);
+        }
+    }
+
+}
@@ -0,0 +1,148 @@
+package com.mogudiandian.common.tree;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 测试比较器排序树
+ *
+ * @author Joshua Sun
+ * @since 2023/7/24
+ */
+public class ComparatorSortedTreeTest {
+
+    /**
+     * 部门的排序
+     */
+    private static final Map<String, Integer> ORDERS = new HashMap<>();
+
+    static {
+        String[] ids = {"tech", "opr", "admin", "boss", "product", "develop", "product-mw", "tech-be", "tech-mw",
+                "tech-fe", "sec", "admin2", "hr", "job", "salary", "opr-sku", "opr-act", "opr-mw"};
+        int[] orders = {3, 4, 2, 1, 1, 2, 1, 1, 2, 3, 1, 1, 1, 1, 2, 2, 3, 1};
+        for (int i = 0; i < ids.length; i++) {
+            ORDERS.put(ids[i], orders[i]);
+        }
+    }
+
+    public static void main(String[] args) {
+        List<TreeTest.Department> list = departments();
+        Collections.shuffle(list);
+
+        List<DepartmentTreeNode> nodes = list.stream()
+                                             .map(DepartmentTreeNode::new)
+                                             .collect(Collectors.toList());
+
+        Comparator<DepartmentTreeNode> comparator = Comparator.comparingInt(DepartmentTreeNode::order);
+        DepartmentTree departmentTree = new DepartmentTree(nodes, comparator);
+
+        departmentTree.print(System.out, x -> x.order() + "." + x.getValue().name, "+-", "--");
+
+        assertEquals(Arrays.asList("boss", "admin", "tech", "opr"), ids(departmentTree.startNodes()), "top nodes");
+        assertEquals(Arrays.asList("opr-mw", "opr-sku", "opr-act"), ids(departmentTree.find("opr").getChildren()), "children of opr");
+        // 行政部和人力资源部的排序相同 都会保留
+        assertEquals(2, departmentTree.find("admin").childCount(), "children of admin");
+        assertEquals(2, departmentTree.indexOf(departmentTree.find("tech-fe")), "index of tech-fe");
+
+        long fingerprint = departmentTree.fingerprint();
+        long oprHash = departmentTree.find("opr").getSubtreeHash();
+
+        departmentTree.setComparator(comparator.reversed());
+        departmentTree.print(System.out, x -> x.order() + "." + x.getValue().name, "+-", "--");
+
+        assertEquals(Arrays.asList("opr", "tech", "admin", "boss"), ids(departmentTree.startNodes()), "reversed top nodes");
+        assertEquals(Arrays.asList("opr-act", "opr-sku", "opr-mw"), ids(departmentTree.find("opr").getChildren()), "reversed children of opr");
+        assertEquals(0, departmentTree.indexOf(departmentTree.find("tech-fe")), "reversed index of tech-fe");
+
+        // 子节点有序 重新排序后指纹随之变化
+        assertTrue(departmentTree.find("opr").getSubtreeHash() != oprHash, "opr hash changes after re-sorting");
+        assertTrue(departmentTree.fingerprint() != fingerprint, "fingerprint changes after re-sorting");
+
+        departmentTree.setComparator(comparator);
+        assertEquals(oprHash, departmentTree.find("opr").getSubtreeHash(), "opr hash after sorting back");
+        assertEquals(fingerprint, departmentTree.fingerprint(), "fingerprint after sorting back");
+
+        System.out.println("ComparatorSortedTreeTest passed");
+    }
+
+    private static List<String> ids(Collection<DepartmentTreeNode> nodes) {
+        return nodes.stream()
+                    .map(x -> x.getValue().id)
+                    .collect(Collectors.toList());
+    }
+
+    private static class DepartmentTreeNode extends AbstractComparatorSortedTreeNode<TreeTest.Department, String, DepartmentTreeNode> {
+
+        public DepartmentTreeNode(TreeTest.Department value) {
+            super(value);
+        }
+
+        private int order() {
+            return ORDERS.get(value.id);
+        }
+
+        @Override
+        protected boolean isTopNode() {
+            return value.parentId == null;
+        }
+
+        @Override
+        protected String extractIdentifier() {
+            return value.id;
+        }
+
+        @Override
+        protected String extractParentIdentifier() {
+            return value.parentId;
+        }
+    }
+
+    private static class DepartmentTree extends AbstractComparatorSortedTree<TreeTest.Department, String, DepartmentTreeNode> {
+
+        public <C extends Collection<DepartmentTreeNode>> DepartmentTree(C nodes, Comparator<? super DepartmentTreeNode> comparator) {
+            super(nodes, true, comparator);
+        }
+    }
+
+    /**
+     * 测试用的部门
+     * @return 部门列表 每次返回新的列表
+     */
+    private static List<TreeTest.Department> departments() {
+        List<TreeTest.Department> list = new ArrayList<>();
+
+        list.add(new TreeTest.Department("tech", "产品研发中心", null));
+        list.add(new TreeTest.Department("opr", "运营中心", null));
+        list.add(new TreeTest.Department("admin", "行政中心", null));
+        list.add(new TreeTest.Department("boss", "总裁办", null));
+        list.add(new TreeTest.Department("product", "产品部", "tech"));
+        list.add(new TreeTest.Department("develop", "研发部", "tech"));
+        list.add(new TreeTest.Department("product-mw", "中台产品部", "product"));
+        list.add(new TreeTest.Department("tech-be", "后台研发部", "develop"));
+        list.add(new TreeTest.Department("tech-mw", "中台研发部", "develop"));
+        list.add(new TreeTest.Department("tech-fe", "前台研发部", "develop"));
+        list.add(new TreeTest.Department("sec", "秘书部", "boss"));
+        list.add(new TreeTest.Department("admin2", "行政部", "admin"));
+        list.add(new TreeTest.Department("hr", "人力资源部", "admin"));
+        list.add(new TreeTest.Department("job", "招聘组", "hr"));
+        list.add(new TreeTest.Department("salary", "薪酬组", "hr"));
+        list.add(new TreeTest.Department("opr-sku", "商品运营部", "opr"));
+        list.add(new TreeTest.Department("opr-act", "活动运营部", "opr"));
+        list.add(new TreeTest.Department("opr-mw", "中台运营部", "opr"));
+
+        return list;
+    }
+
+    private static void assertEquals(Object expected, Object actual, String message) {
+        if (!Objects.equals(expected, actual)) {
+            throw new AssertionError(message + ": expected <" + expected + "> but was <" + actual + ">");
+        }
+    }
+
+    private static void assertTrue(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+}
@@ -0,0 +1,145 @@
+package com.mogudiandian.common.tree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * 测试过滤树
+ *
+ * @author Joshua Sun
+ * @since 2023/7/24
+ */
+public class FilteredTreeTest {
+
+    public static void main(String[] args) {
+        DepartmentTree departmentTree = departmentTree();
+
+        FilteredTree<TreeTest.Department, String, DepartmentTreeNode> filteredTree = departmentTree.filter(x -> x.getValue().name.contains("中"));
+        filteredTree.print(System.out, x -> x.getValue().name + (filteredTree.isMatched(x) ? "*" : ""), "+-", "--");
+
+        // 名称包含"中"的节点及其祖先节点
+        assertEquals(Arrays.asList("产品研发中心", "产品部", "中台产品部", "研发部", "中台研发部", "运营中心", "中台运营部", "行政中心"),
+                names(filteredTree.flat()), "filtered nodes");
+        assertEquals(8, filteredTree.cachedSize(), "filtered size");
+        assertTrue(filteredTree.isMatched(departmentTree.find("tech")), "tech matched");
+        assertTrue(!filteredTree.isMatched(departmentTree.find("product")) && filteredTree.isVisible(departmentTree.find("product")), "product visible as ancestor");
+        assertTrue(filteredTree.find("boss") == null, "boss not visible");
+        assertEquals(Arrays.asList("产品研发中心", "运营中心", "行政中心"), names(filteredTree.flat(AbstractTree.TraversingLimit.depth(0))), "visible top nodes");
+        List<NestedSetRow<String>> rows = new ArrayList<>();
+        filteredTree.exportNestedSet(rows::addAll, 100);
+        assertEquals(8, rows.size(), "exported rows");
+
+        filteredTree.narrow(x -> x.getValue().name.contains("中台"));
+        assertEquals(Arrays.asList("产品研发中心", "产品部", "中台产品部", "研发部", "中台研发部", "运营中心", "中台运营部"),
+                names(filteredTree.flat()), "narrowed nodes");
+        assertTrue(!filteredTree.isVisible(departmentTree.find("admin")), "admin not visible after narrow");
+
+        // 很深的树
+        int depth = 100000;
+        List<TreeTest.Department> chain = new ArrayList<>(depth);
+        chain.add(new TreeTest.Department("n0", "n0", null));
+        for (int i = 1; i < depth; i++) {
+            chain.add(new TreeTest.Department("n" + i, "n" + i, "n" + (i - 1)));
+        }
+        DepartmentTree deepTree = departmentTree(chain);
+        String deepest = "n" + (depth - 1);
+        FilteredTree<TreeTest.Department, String, DepartmentTreeNode> deepFilteredTree = deepTree.filter(x -> x.getValue().id.equals(deepest));
+        assertEquals(depth, deepFilteredTree.cachedSize(), "deep filtered size");
+        assertTrue(deepFilteredTree.isMatched(deepTree.find(deepest)), "deepest matched");
+        deepFilteredTree.narrow(x -> false);
+        assertEquals(0, deepFilteredTree.cachedSize(), "deep narrowed size");
+
+        System.out.println("FilteredTreeTest passed");
+    }
+
+    /**
+     * 测试用的部门
+     * @return 部门列表 每次返回新的列表
+     */
+    private static List<TreeTest.Department> departments() {
+        List<TreeTest.Department> list = new ArrayList<>();
+
+        list.add(new TreeTest.Department("tech", "产品研发中心", null));
+        list.add(new TreeTest.Department("opr", "运营中心", null));
+        list.add(new TreeTest.Department("admin", "行政中心", null));
+        list.add(new TreeTest.Department("boss", "总裁办", null));
+        list.add(new TreeTest.Department("product", "产品部", "tech"));
+        list.add(new TreeTest.Department("develop", "研发部", "tech"));
+        list.add(new TreeTest.Department("product-mw", "中台产品部", "product"));
+        list.add(new TreeTest.Department("tech-be", "后台研发部", "develop"));
+        list.add(new TreeTest.Department("tech-mw", "中台研发部", "develop"));
+        list.add(new TreeTest.Department("tech-fe", "前台研发部", "develop"));
+        list.add(new TreeTest.Department("sec", "秘书部", "boss"));
+        list.add(new TreeTest.Department("admin2", "行政部", "admin"));
+        list.add(new TreeTest.Department("hr", "人力资源部", "admin"));
+        list.add(new TreeTest.Department("job", "招聘组", "hr"));
+        list.add(new TreeTest.Department("salary", "薪酬组", "hr"));
+        list.add(new TreeTest.Department("opr-sku", "商品运营部", "opr"));
+        list.add(new TreeTest.Department("opr-act", "活动运营部", "opr"));
+        list.add(new TreeTest.Department("opr-mw", "中台运营部", "opr"));
+
+        return list;
+    }
+
+    private static DepartmentTree departmentTree(List<TreeTest.Department> list) {
+        return new DepartmentTree(list.stream()
+                                      .map(DepartmentTreeNode::new)
+                                      .collect(Collectors.toList()));
+    }
+
+    private static DepartmentTree departmentTree() {
+        return departmentTree(departments());
+    }
+
+    private static List<String> names(Collection<DepartmentTreeNode> nodes) {
+        return nodes.stream()
+                    .map(x -> x.getValue().name)
+                    .collect(Collectors.toList());
+    }
+
+    private static void assertEquals(Object expected, Object actual, String message) {
+        if (!Objects.equals(expected, actual)) {
+            throw new AssertionError(message + ": expected <" + expected + "> but was <" + actual + ">");
+        }
+    }
+
+    private static void assertTrue(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    private static class DepartmentTreeNode extends AbstractTreeNode<TreeTest.Department, String, DepartmentTreeNode> {
+
+        public DepartmentTreeNode(TreeTest.Department value) {
+            super(value);
+        }
+
+        @Override
+        protected boolean isTopNode() {
+            return value.parentId == null;
+        }
+
+        @Override
+        protected String extractIdentifier() {
+            return value.id;
+        }
+
+        @Override
+        protected String extractParentIdentifier() {
+            return value.parentId;
+        }
+    }
+
+    private static class DepartmentTree extends AbstractTree<TreeTest.Department, String, DepartmentTreeNode> {
+
+        public <C extends Collection<DepartmentTreeNode>> DepartmentTree(C nodes) {
+            super(nodes, true, OrphanPolicy.TOP);
+        }
+    }
+
+}
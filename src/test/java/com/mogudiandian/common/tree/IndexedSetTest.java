@@ -0,0 +1,133 @@
+package com.mogudiandian.common.tree;
+
+import java.util.*;
+
+/**
+ * 测试可按下标访问的子节点
+ *
+ * @author Joshua Sun
+ * @since 2023/7/24
+ */
+public class IndexedSetTest {
+
+    public static void main(String[] args) {
+        // 子节点的下标访问、分页和下标查找
+        DepartmentTreeNode parent = node("parent");
+        List<DepartmentTreeNode> children = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            DepartmentTreeNode child = node("c" + i);
+            children.add(child);
+            parent.addChild(child);
+        }
+        assertEquals("c3", parent.getChild(3).getValue().id, "getChild(3)");
+        assertEquals(Arrays.asList("c8", "c9"), ids(parent.getChildren(8, 5)), "getChildren(8, 5)");
+        assertEquals(Collections.emptyList(), ids(parent.getChildren(10, 5)), "getChildren(10, 5)");
+        assertEquals(7, parent.indexOf(children.get(7)), "indexOf(c7)");
+
+        // 删除后下标随之前移
+        children.get(2).isolate();
+        children.get(5).isolate();
+        assertEquals(8, parent.childCount(), "childCount after isolate");
+        assertEquals("c3", parent.getChild(2).getValue().id, "getChild(2) after isolate");
+        assertEquals(Arrays.asList("c4", "c6", "c7"), ids(parent.getChildren(3, 3)), "getChildren(3, 3) after isolate");
+        assertEquals(5, parent.indexOf(children.get(7)), "indexOf(c7) after isolate");
+        assertEquals(-1, parent.indexOf(children.get(2)), "indexOf(c2) after isolate");
+
+        // 再添加的节点排在最后
+        parent.addChild(children.get(2));
+        assertEquals(8, parent.indexOf(children.get(2)), "indexOf(c2) after re-adding");
+        assertEquals("c2", parent.getChild(8).getValue().id, "getChild(8) after re-adding");
+
+        // 迭代时删除
+        IndexedSet<Integer> set = new IndexedSet<>();
+        for (int i = 0; i < 10; i++) {
+            set.add(i);
+        }
+        set.removeIf(x -> x % 3 == 0);
+        assertEquals(Arrays.asList(1, 2, 4, 5, 7, 8), new ArrayList<>(set), "removeIf");
+        assertEquals(4, set.indexOf(7), "indexOf(7) after removeIf");
+
+        // 有序Set 相等的元素按添加的先后排列
+        SortedIndexedSet<String> sortedSet = new SortedIndexedSet<>(Comparator.comparingInt(String::length));
+        sortedSet.addAll(Arrays.asList("ccc", "a", "bb", "b", "dd"));
+        assertEquals(Arrays.asList("a", "b", "bb", "dd", "ccc"), new ArrayList<>(sortedSet), "sorted order");
+        assertEquals(2, sortedSet.indexOf("bb"), "sorted indexOf(bb)");
+        sortedSet.remove("a");
+        sortedSet.add("e");
+        assertEquals(Arrays.asList("b", "e", "bb", "dd", "ccc"), new ArrayList<>(sortedSet), "sorted order after remove and add");
+        sortedSet.sort(Comparator.reverseOrder());
+        assertEquals(Arrays.asList("e", "dd", "ccc", "bb", "b"), new ArrayList<>(sortedSet), "sorted by new comparator");
+        sortedSet.add("d");
+        assertEquals("d", sortedSet.get(2), "new element follows new comparator");
+
+        // 宽节点 逐个添加和删除都不会移动其它元素
+        int width = 500000;
+        SortedIndexedSet<Integer> wideSet = new SortedIndexedSet<>();
+        Set<Integer> distinct = new HashSet<>();
+        Random random = new Random(1);
+        for (int i = 0; i < width; i++) {
+            int x = random.nextInt();
+            wideSet.add(x);
+            distinct.add(x);
+        }
+        assertEquals(distinct.size(), wideSet.size(), "wide set size");
+        Integer previous = null;
+        for (Integer x : wideSet) {
+            assertTrue(previous == null || previous <= x, "wide set sorted");
+            previous = x;
+        }
+        for (Integer x : new ArrayList<>(wideSet)) {
+            wideSet.remove(x);
+        }
+        assertEquals(0, wideSet.size(), "wide set size after removing all");
+
+        System.out.println("IndexedSetTest passed");
+    }
+
+    private static DepartmentTreeNode node(String id) {
+        return new DepartmentTreeNode(new TreeTest.Department(id, id, null));
+    }
+
+    private static List<String> ids(List<DepartmentTreeNode> nodes) {
+        List<String> ids = new ArrayList<>();
+        for (DepartmentTreeNode node : nodes) {
+            ids.add(node.getValue().id);
+        }
+        return ids;
+    }
+
+    private static void assertEquals(Object expected, Object actual, String message) {
+        if (!Objects.equals(expected, actual)) {
+            throw new AssertionError(message + ": expected <" + expected + "> but was <" + actual + ">");
+        }
+    }
+
+    private static void assertTrue(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    private static class DepartmentTreeNode extends AbstractTreeNode<TreeTest.Department, String, DepartmentTreeNode> {
+
+        public DepartmentTreeNode(TreeTest.Department value) {
+            super(value);
+        }
+
+        @Override
+        protected boolean isTopNode() {
+            return value.parentId == null;
+        }
+
+        @Override
+        protected String extractIdentifier() {
+            return value.id;
+        }
+
+        @Override
+        protected String extractParentIdentifier() {
+            return value.parentId;
+        }
+    }
+
+}
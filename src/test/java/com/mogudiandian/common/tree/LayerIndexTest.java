@@ -0,0 +1,177 @@
+package com.mogudiandian.common.tree;
+
+import com.mogudiandian.common.tree.TreeTest.Department;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * 测试层级索引 结构调整后与不建立索引时逐层遍历的结果一致
+ *
+ * @author Joshua Sun
+ * @since 2023/7/24
+ */
+public class LayerIndexTest {
+
+    public static void main(String[] args) {
+        DepartmentTree indexed = new LayerIndexedDepartmentTree(departments());
+        DepartmentTree reference = departmentTree();
+        assertEquals(Arrays.asList(4, 8, 6), counts(indexed), "initial layers");
+        assertLayers(reference, indexed, "initial");
+
+        // 摘除子树 后代节点从索引中移除
+        SubTree<Department, String, DepartmentTreeNode> develop = indexed.detach(indexed.find("develop"));
+        SubTree<Department, String, DepartmentTreeNode> referenceDevelop = reference.detach(reference.find("develop"));
+        assertEquals(Arrays.asList(4, 7, 3), counts(indexed), "layers after detach");
+        assertLayers(reference, indexed, "detach");
+        assertEquals(0, develop.getRoot().getLayer(), "detached root layer");
+
+        // 嫁接到更深的节点下 层数增加
+        indexed.graft(indexed.find("job"), develop);
+        reference.graft(reference.find("job"), referenceDevelop);
+        assertEquals(Arrays.asList(4, 7, 3, 1, 3), counts(indexed), "layers after graft");
+        assertLayers(reference, indexed, "graft");
+        assertEquals(4, indexed.find("tech-be").getLayer(), "grafted descendant layer");
+
+        // 摘除最深的子树 末尾的空层被去掉
+        apply(reference, indexed, tree -> tree.detach(tree.find("hr")));
+        assertEquals(Arrays.asList(4, 6, 1), counts(indexed), "layers after detaching deepest subtree");
+        assertLayers(reference, indexed, "detach deepest");
+
+        // 唯一标识重复时重建索引
+        apply(reference, indexed, tree -> tree.graft(tree.find("sec"), departmentTree(Arrays.asList(
+                new Department("opr", "新运营中心", null),
+                new Department("opr-sku", "新商品运营部", "opr"),
+                new Department("opr-new", "新业务运营部", "opr"))), AbstractTree.DuplicatePolicy.KEEP_INCOMING));
+        assertEquals(Arrays.asList(3, 3, 2, 4), counts(indexed), "layers after replacing duplicates");
+        assertLayers(reference, indexed, "graft duplicates");
+
+        // 合并森林
+        apply(reference, indexed, tree -> tree.merge(departmentTree(Arrays.asList(
+                new Department("ceo", "首席执行官", null),
+                new Department("cfo", "首席财务官", "ceo")))));
+        assertEquals(Arrays.asList(4, 4, 2, 4), counts(indexed), "layers after merge");
+        assertLayers(reference, indexed, "merge");
+
+        System.out.println("LayerIndexTest passed");
+    }
+
+    private static void apply(DepartmentTree reference, DepartmentTree indexed, Consumer<DepartmentTree> operation) {
+        operation.accept(reference);
+        operation.accept(indexed);
+    }
+
+    private static List<Integer> counts(DepartmentTree tree) {
+        List<Integer> counts = new ArrayList<>();
+        for (int layer = 0; layer < tree.layerCount(); layer++) {
+            counts.add(tree.countAtLayer(layer));
+        }
+        return counts;
+    }
+
+    /**
+     * 与不建立索引的树逐层比较
+     */
+    private static void assertLayers(DepartmentTree reference, DepartmentTree indexed, String message) {
+        assertEquals(reference.size(), indexed.size(), message + " size");
+        assertEquals(reference.layerCount(), indexed.layerCount(), message + " layer count");
+        for (int layer = 0; layer <= reference.layerCount(); layer++) {
+            assertEquals(ids(reference.nodesAtLayer(layer)), ids(indexed.nodesAtLayer(layer)), message + " layer " + layer);
+            for (DepartmentTreeNode node : indexed.nodesAtLayer(layer)) {
+                assertEquals(layer, node.getLayer(), message + " layer of " + node.getValue().id);
+            }
+        }
+    }
+
+    private static Set<String> ids(Collection<DepartmentTreeNode> nodes) {
+        return nodes.stream().map(x -> x.getValue().id).collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    private static class LayerIndexedDepartmentTree extends DepartmentTree {
+
+        public LayerIndexedDepartmentTree(List<Department> list) {
+            super(list.stream().map(DepartmentTreeNode::new).collect(Collectors.toList()));
+        }
+
+        @Override
+        protected boolean isLayerIndexed() {
+            return true;
+        }
+    }
+
+    /**
+     * 测试用的部门
+     * @return 部门列表 每次返回新的列表
+     */
+    private static List<Department> departments() {
+        List<Department> list = new ArrayList<>();
+
+        list.add(new Department("tech", "产品研发中心", null));
+        list.add(new Department("opr", "运营中心", null));
+        list.add(new Department("admin", "行政中心", null));
+        list.add(new Department("boss", "总裁办", null));
+        list.add(new Department("product", "产品部", "tech"));
+        list.add(new Department("develop", "研发部", "tech"));
+        list.add(new Department("product-mw", "中台产品部", "product"));
+        list.add(new Department("tech-be", "后台研发部", "develop"));
+        list.add(new Department("tech-mw", "中台研发部", "develop"));
+        list.add(new Department("tech-fe", "前台研发部", "develop"));
+        list.add(new Department("sec", "秘书部", "boss"));
+        list.add(new Department("admin2", "行政部", "admin"));
+        list.add(new Department("hr", "人力资源部", "admin"));
+        list.add(new Department("job", "招聘组", "hr"));
+        list.add(new Department("salary", "薪酬组", "hr"));
+        list.add(new Department("opr-sku", "商品运营部", "opr"));
+        list.add(new Department("opr-act", "活动运营部", "opr"));
+        list.add(new Department("opr-mw", "中台运营部", "opr"));
+
+        return list;
+    }
+
+    private static DepartmentTree departmentTree(List<Department> list) {
+        return new DepartmentTree(list.stream()
+                                      .map(DepartmentTreeNode::new)
+                                      .collect(Collectors.toList()));
+    }
+
+    private static DepartmentTree departmentTree() {
+        return departmentTree(departments());
+    }
+
+    private static void assertEquals(Object expected, Object actual, String message) {
+        if (!Objects.equals(expected, actual)) {
+            throw new AssertionError(message + ": expected <" + expected + "> but was <" + actual + ">");
+        }
+    }
+
+    private static class DepartmentTreeNode extends AbstractTreeNode<Department, String, DepartmentTreeNode> {
+
+        public DepartmentTreeNode(Department value) {
+            super(value);
+        }
+
+        @Override
+        protected boolean isTopNode() {
+            return value.parentId == null;
+        }
+
+        @Override
+        protected String extractIdentifier() {
+            return value.id;
+        }
+
+        @Override
+        protected String extractParentIdentifier() {
+            return value.parentId;
+        }
+    }
+
+    private static class DepartmentTree extends AbstractTree<Department, String, DepartmentTreeNode> {
+
+        public <C extends Collection<DepartmentTreeNode>> DepartmentTree(C nodes) {
+            super(nodes, true, OrphanPolicy.TOP);
+        }
+    }
+
+}
@@ -0,0 +1,178 @@
+package com.mogudiandian.common.tree;
+
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+/**
+ * 测试懒加载树
+ *
+ * @author Joshua Sun
+ * @since 2023/7/24
+ */
+public class LazyTreeTest {
+
+    public static void main(String[] args) {
+        // 展开时合并兄弟节点一起加载
+        RecordingLoader loader = new RecordingLoader(departments());
+        DepartmentTree departmentTree = new DepartmentTree(departments(), loader, 100, 100, Runnable::run);
+        assertEquals(4, departmentTree.cachedSize(), "only top nodes before expanding");
+
+        departmentTree.expand(departmentTree.find("tech"));
+        assertEquals(Collections.singletonList(Arrays.asList("tech", "opr", "admin", "boss")), loader.batches, "siblings loaded in one batch");
+        assertTrue(departmentTree.isExpanded(departmentTree.find("opr")), "opr expanded with tech");
+        assertEquals(12, departmentTree.cachedSize(), "size after expanding top nodes");
+        departmentTree.expand(departmentTree.find("opr"));
+        assertEquals(1, loader.batches.size(), "expanded node is not loaded again");
+
+        // 超过已展开节点数量后淘汰最久未访问的节点
+        loader = new RecordingLoader(departments());
+        departmentTree = new DepartmentTree(departments(), loader, 2, 3, Runnable::run);
+        departmentTree.expand(departmentTree.find("tech"));
+        assertEquals(Collections.singletonList(Arrays.asList("tech", "opr")), loader.batches, "batch size limits siblings");
+        departmentTree.expand(departmentTree.find("develop"));
+        assertEquals(Arrays.asList("develop", "product"), loader.batches.get(1), "children of tech loaded in one batch");
+        DepartmentTreeNode opr = departmentTree.find("opr");
+        assertTrue(!departmentTree.isExpanded(opr) && opr.getChildren() == null, "least recently used opr is collapsed");
+        assertTrue(departmentTree.isExpanded(departmentTree.find("tech")), "ancestor of recently expanded node is kept");
+        assertTrue(departmentTree.find("opr-sku") == null, "collapsed children are removed from the index");
+        assertEquals(10, departmentTree.cachedSize(), "size after collapsing opr");
+
+        // 再次展开时重新加载
+        departmentTree.expand(opr);
+        assertEquals(3, departmentTree.find("opr").childCount(), "opr reloaded");
+
+        // 限制深度的遍历预加载未展开的节点 展开时使用预加载的结果
+        loader = new RecordingLoader(departments());
+        departmentTree = new DepartmentTree(departments(), loader, 100, 100, Runnable::run);
+        List<String> visited = new ArrayList<>();
+        departmentTree.dft(AbstractTree.TraversingLimit.depth(0), x -> {
+            visited.add(x.getValue().id);
+            return AbstractTree.TraversingAction.CONTINUE;
+        });
+        assertEquals(Arrays.asList("tech", "opr", "admin", "boss"), visited, "depth 0 visits top nodes");
+        assertEquals(1, loader.batches.size(), "pruned nodes are prefetched");
+        assertTrue(!departmentTree.isExpanded(departmentTree.find("tech")), "prefetched node is not expanded yet");
+        departmentTree.expand(departmentTree.find("tech"));
+        assertEquals(1, loader.batches.size(), "expanding uses the prefetched result");
+        assertTrue(departmentTree.isExpanded(departmentTree.find("boss")), "whole prefetch batch is linked");
+
+        // 遍历整个树会展开所有节点
+        assertEquals(departments().size(), departmentTree.flat().size(), "flat loads the whole tree");
+
+        // 展开的节点及其祖先节点不会被淘汰 路径比已展开节点数量长时遍历也不会丢失节点
+        departmentTree = new DepartmentTree(departments(), new RecordingLoader(departments()), 100, 1, Runnable::run);
+        assertEquals(departments().size(), departmentTree.flat().size(), "flat with one expanded node");
+        int depth = 20;
+        List<TreeTest.Department> chain = new ArrayList<>(depth);
+        chain.add(new TreeTest.Department("n0", "n0", null));
+        for (int i = 1; i < depth; i++) {
+            chain.add(new TreeTest.Department("n" + i, "n" + i, "n" + (i - 1)));
+        }
+        DepartmentTree chainTree = new DepartmentTree(chain, new RecordingLoader(chain), 100, 3, Runnable::run);
+        List<String> chainIds = chainTree.flat().stream().map(x -> x.getValue().id).collect(Collectors.toList());
+        assertEquals(chain.stream().map(x -> x.id).collect(Collectors.toList()), chainIds, "flat chain deeper than max expanded nodes");
+        DepartmentTreeNode deepest = chainTree.find("n" + (depth - 1));
+        assertTrue(deepest != null && chainTree.isExpanded(deepest), "deepest node is expanded");
+        assertTrue(chainTree.find("n0").getChildren() != null, "ancestors of expanded node are kept");
+
+        System.out.println("LazyTreeTest passed");
+    }
+
+    /**
+     * 记录每次加载的父节点唯一标识
+     */
+    private static class RecordingLoader implements ChildLoader<String, DepartmentTreeNode> {
+
+        private final List<TreeTest.Department> departments;
+
+        private final List<List<String>> batches = new ArrayList<>();
+
+        private RecordingLoader(List<TreeTest.Department> departments) {
+            this.departments = departments;
+        }
+
+        @Override
+        public Collection<DepartmentTreeNode> load(Collection<String> parentIdentifiers) {
+            batches.add(new ArrayList<>(parentIdentifiers));
+            return departments.stream()
+                           .filter(x -> parentIdentifiers.contains(x.parentId))
+                           .map(DepartmentTreeNode::new)
+                           .collect(Collectors.toList());
+        }
+    }
+
+    private static class DepartmentTree extends AbstractLazyTree<TreeTest.Department, String, DepartmentTreeNode> {
+
+        public DepartmentTree(List<TreeTest.Department> departments, ChildLoader<String, DepartmentTreeNode> loader, int batchSize, int maxExpandedNodes, Executor executor) {
+            super(departments.stream()
+                          .filter(x -> x.parentId == null)
+                          .map(DepartmentTreeNode::new)
+                          .collect(Collectors.toList()), true, loader, batchSize, maxExpandedNodes, executor);
+        }
+    }
+
+    /**
+     * 测试用的部门
+     * @return 部门列表 每次返回新的列表
+     */
+    private static List<TreeTest.Department> departments() {
+        List<TreeTest.Department> list = new ArrayList<>();
+
+        list.add(new TreeTest.Department("tech", "产品研发中心", null));
+        list.add(new TreeTest.Department("opr", "运营中心", null));
+        list.add(new TreeTest.Department("admin", "行政中心", null));
+        list.add(new TreeTest.Department("boss", "总裁办", null));
+        list.add(new TreeTest.Department("product", "产品部", "tech"));
+        list.add(new TreeTest.Department("develop", "研发部", "tech"));
+        list.add(new TreeTest.Department("product-mw", "中台产品部", "product"));
+        list.add(new TreeTest.Department("tech-be", "后台研发部", "develop"));
+        list.add(new TreeTest.Department("tech-mw", "中台研发部", "develop"));
+        list.add(new TreeTest.Department("tech-fe", "前台研发部", "develop"));
+        list.add(new TreeTest.Department("sec", "秘书部", "boss"));
+        list.add(new TreeTest.Department("admin2", "行政部", "admin"));
+        list.add(new TreeTest.Department("hr", "人力资源部", "admin"));
+        list.add(new TreeTest.Department("job", "招聘组", "hr"));
+        list.add(new TreeTest.Department("salary", "薪酬组", "hr"));
+        list.add(new TreeTest.Department("opr-sku", "商品运营部", "opr"));
+        list.add(new TreeTest.Department("opr-act", "活动运营部", "opr"));
+        list.add(new TreeTest.Department("opr-mw", "中台运营部", "opr"));
+
+        return list;
+    }
+
+    private static void assertEquals(Object expected, Object actual, String message) {
+        if (!Objects.equals(expected, actual)) {
+            throw new AssertionError(message + ": expected <" + expected + "> but was <" + actual + ">");
+        }
+    }
+
+    private static void assertTrue(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    private static class DepartmentTreeNode extends AbstractTreeNode<TreeTest.Department, String, DepartmentTreeNode> {
+
+        public DepartmentTreeNode(TreeTest.Department value) {
+            super(value);
+        }
+
+        @Override
+        protected boolean isTopNode() {
+            return value.parentId == null;
+        }
+
+        @Override
+        protected String extractIdentifier() {
+            return value.id;
+        }
+
+        @Override
+        protected String extractParentIdentifier() {
+            return value.parentId;
+        }
+    }
+
+}
@@ -0,0 +1,188 @@
+package com.mogudiandian.common.tree;
+
+import com.mogudiandian.common.tree.TreeTest.Department;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+
+/**
+ * 测试嵌套集合与闭包表的导入导出
+ *
+ * @author Joshua Sun
+ * @since 2023/7/24
+ */
+public class NestedSetTest {
+
+    public static void main(String[] args) {
+        List<Department> departments = departments();
+        Map<String, Department> departmentMap = departments.stream().collect(Collectors.toMap(x -> x.id, x -> x));
+        DepartmentTree departmentTree = departmentTree(departments);
+
+        // 导出嵌套集合 按批输出
+        List<NestedSetRow<String>> rows = new ArrayList<>();
+        List<Integer> batchSizes = new ArrayList<>();
+        departmentTree.exportNestedSet(batch -> {
+            batchSizes.add(batch.size());
+            rows.addAll(batch);
+        }, 5);
+        assertEquals(Arrays.asList(5, 5, 5, 3), batchSizes, "nested set batches");
+        NestedSetRow<String> tech = rows.stream().filter(x -> x.getIdentifier().equals("tech")).findFirst().orElse(null);
+        assertTrue(tech != null && tech.getLeft() == 1 && tech.getRight() == 14 && tech.getDepth() == 0, "tech row " + tech);
+
+        // 导出的行（后序）导入后结构一致
+        NestedSetDepartmentTree imported = new NestedSetDepartmentTree(rows, id -> new DepartmentTreeNode(departmentMap.get(id)));
+        assertEquals(departmentTree.size(), imported.size(), "imported size");
+        assertEquals(structure(departmentTree), structure(imported), "imported structure");
+        assertEquals(departmentTree.fingerprint(), imported.fingerprint(), "imported fingerprint");
+        assertEquals(2, imported.find("tech-be").getLayer(), "imported layer");
+
+        // 按左值排序的节点导入
+        Map<String, NestedSetRow<String>> rowMap = rows.stream().collect(Collectors.toMap(NestedSetRow::getIdentifier, x -> x));
+        List<DepartmentTreeNode> sortedNodes = rows.stream()
+                                                   .sorted(Comparator.comparingInt(NestedSetRow::getLeft))
+                                                   .map(x -> new DepartmentTreeNode(departmentMap.get(x.getIdentifier())))
+                                                   .collect(Collectors.toList());
+        NestedSetDepartmentTree sorted = new NestedSetDepartmentTree(sortedNodes,
+                                                                     x -> rowMap.get(x.getValue().id).getLeft(),
+                                                                     x -> rowMap.get(x.getValue().id).getRight());
+        assertEquals(structure(departmentTree), structure(sorted), "sorted import structure");
+
+        // 非法的左右值
+        List<NestedSetRow<String>> sameRight = Arrays.asList(new NestedSetRow<>("tech", 1, 4, 0), new NestedSetRow<>("develop", 2, 4, 1));
+        assertThrows(IllegalStateException.class, () -> new NestedSetDepartmentTree(sameRight, id -> new DepartmentTreeNode(departmentMap.get(id))),
+                     "child right equal to parent right");
+        List<NestedSetRow<String>> overlapped = Arrays.asList(new NestedSetRow<>("tech", 1, 4, 0), new NestedSetRow<>("develop", 2, 5, 1));
+        assertThrows(IllegalStateException.class, () -> new NestedSetDepartmentTree(overlapped, id -> new DepartmentTreeNode(departmentMap.get(id))),
+                     "child overlaps parent");
+        List<DepartmentTreeNode> unsorted = new ArrayList<>(sortedNodes);
+        Collections.swap(unsorted, 0, 1);
+        assertThrows(IllegalStateException.class, () -> new NestedSetDepartmentTree(unsorted,
+                                                                                   x -> rowMap.get(x.getValue().id).getLeft(),
+                                                                                   x -> rowMap.get(x.getValue().id).getRight()),
+                     "nodes not sorted by left");
+
+        // 闭包表 每个节点与自身及每个祖先各一行
+        List<ClosureTableRow<String>> closureRows = new ArrayList<>();
+        departmentTree.exportClosureTable(closureRows::addAll, 7);
+        int expectedRows = departmentTree.flat().stream().mapToInt(x -> x.getLayer() + 1).sum();
+        assertEquals(38, expectedRows, "expected closure rows");
+        assertEquals(expectedRows, closureRows.size(), "closure rows");
+        assertEquals(18L, closureRows.stream().filter(x -> x.getDistance() == 0).count(), "self rows");
+        assertTrue(closureRows.stream().anyMatch(x -> x.getAncestor().equals("tech") && x.getDescendant().equals("tech-be") && x.getDistance() == 2), "tech to tech-be");
+        assertTrue(closureRows.stream().noneMatch(x -> x.getAncestor().equals("tech") && x.getDescendant().equals("hr")), "no row across subtrees");
+
+        System.out.println("NestedSetTest passed");
+    }
+
+    /**
+     * 深度优先顺序的节点及其父节点
+     */
+    private static List<String> structure(AbstractTree<Department, String, DepartmentTreeNode> tree) {
+        return tree.flat()
+                   .stream()
+                   .map(x -> x.getValue().id + "<" + (x.getParent() == null ? "" : x.getParent().getValue().id))
+                   .collect(Collectors.toList());
+    }
+
+    private static class NestedSetDepartmentTree extends AbstractTree<Department, String, DepartmentTreeNode> {
+
+        public NestedSetDepartmentTree(Collection<NestedSetRow<String>> rows, Function<String, DepartmentTreeNode> nodeFunction) {
+            super(rows, true, nodeFunction);
+        }
+
+        public NestedSetDepartmentTree(List<DepartmentTreeNode> nodes, ToIntFunction<DepartmentTreeNode> leftFunction, ToIntFunction<DepartmentTreeNode> rightFunction) {
+            super(nodes, true, leftFunction, rightFunction);
+        }
+    }
+
+    /**
+     * 测试用的部门
+     * @return 部门列表 每次返回新的列表
+     */
+    private static List<Department> departments() {
+        List<Department> list = new ArrayList<>();
+
+        list.add(new Department("tech", "产品研发中心", null));
+        list.add(new Department("opr", "运营中心", null));
+        list.add(new Department("admin", "行政中心", null));
+        list.add(new Department("boss", "总裁办", null));
+        list.add(new Department("product", "产品部", "tech"));
+        list.add(new Department("develop", "研发部", "tech"));
+        list.add(new Department("product-mw", "中台产品部", "product"));
+        list.add(new Department("tech-be", "后台研发部", "develop"));
+        list.add(new Department("tech-mw", "中台研发部", "develop"));
+        list.add(new Department("tech-fe", "前台研发部", "develop"));
+        list.add(new Department("sec", "秘书部", "boss"));
+        list.add(new Department("admin2", "行政部", "admin"));
+        list.add(new Department("hr", "人力资源部", "admin"));
+        list.add(new Department("job", "招聘组", "hr"));
+        list.add(new Department("salary", "薪酬组", "hr"));
+        list.add(new Department("opr-sku", "商品运营部", "opr"));
+        list.add(new Department("opr-act", "活动运营部", "opr"));
+        list.add(new Department("opr-mw", "中台运营部", "opr"));
+
+        return list;
+    }
+
+    private static DepartmentTree departmentTree(List<Department> list) {
+        return new DepartmentTree(list.stream()
+                                      .map(DepartmentTreeNode::new)
+                                      .collect(Collectors.toList()));
+    }
+
+    private static void assertEquals(Object expected, Object actual, String message) {
+        if (!Objects.equals(expected, actual)) {
+            throw new AssertionError(message + ": expected <" + expected + "> but was <" + actual + ">");
+        }
+    }
+
+    private static void assertTrue(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    private static void assertThrows(Class<? extends Throwable> type, Runnable runnable, String message) {
+        try {
+            runnable.run();
+        } catch (Throwable e) {
+            if (type.isInstance(e)) {
+                return;
+            }
+            throw new AssertionError(message + ": expected " + type.getSimpleName() + " but was " + e, e);
+        }
+        throw new AssertionError(message + ": expected " + type.getSimpleName());
+    }
+
+    private static class DepartmentTreeNode extends AbstractTreeNode<Department, String, DepartmentTreeNode> {
+
+        public DepartmentTreeNode(Department value) {
+            super(value);
+        }
+
+        @Override
+        protected boolean isTopNode() {
+            return value.parentId == null;
+        }
+
+        @Override
+        protected String extractIdentifier() {
+            return value.id;
+        }
+
+        @Override
+        protected String extractParentIdentifier() {
+            return value.parentId;
+        }
+    }
+
+    private static class DepartmentTree extends AbstractTree<Department, String, DepartmentTreeNode> {
+
+        public <C extends Collection<DepartmentTreeNode>> DepartmentTree(C nodes) {
+            super(nodes, true, OrphanPolicy.TOP);
+        }
+    }
+
+}
@@ -0,0 +1,136 @@
+package com.mogudiandian.common.tree;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 测试堆外树
+ *
+ * @author Joshua Sun
+ * @since 2023/7/24
+ */
+public class OffHeapTreeTest {
+
+    public static void main(String[] args) {
+        try (OffHeapTree<String> tree = new OffHeapTree<>(new StringCodec())) {
+            // 顺序不限 子节点可以先于父节点添加
+            tree.add(5, 2, "前台研发部");
+            tree.add(4, 2, "后台研发部");
+            tree.add(1, "产品研发中心");
+            tree.add(2, 1, "研发部");
+            tree.add(3, 1, "产品部");
+            tree.add(6, "行政中心");
+            tree.add(7, 6, "人力资源部");
+            tree.add(8, 99, "孤儿部门");
+            tree.treeize(AbstractTree.OrphanPolicy.TOP);
+            tree.print(System.out, OffHeapTree.Cursor::getValue, "+-", "--");
+
+            assertEquals(8, tree.size(), "size");
+            assertEquals(Arrays.asList("0 产品研发中心", "1 研发部", "2 前台研发部", "2 后台研发部", "1 产品部", "0 行政中心", "1 人力资源部", "0 孤儿部门"),
+                         layers(tree), "depth-first order with orphan appended at top");
+
+            // 树化后添加的节点直接挂到父节点下
+            tree.add(9, 7, "招聘组");
+            OffHeapTree<String>.Cursor cursor = tree.find(9);
+            assertEquals("招聘组", cursor.getValue(), "added after treeize");
+            assertEquals(2, cursor.getLayer(), "layer after treeize");
+            assertEquals(7L, cursor.getParentIdentifier(), "parent after treeize");
+            assertThrows(IllegalStateException.class, () -> tree.add(9, 7, "重复"), "replicated identifier");
+
+            // 游标可以在节点之间移动
+            cursor = tree.find(2);
+            List<String> children = new ArrayList<>();
+            if (cursor.toFirstChild()) {
+                do {
+                    children.add(cursor.getValue());
+                } while (cursor.toNextSibling());
+            }
+            assertEquals(Arrays.asList("前台研发部", "后台研发部"), children, "children of 研发部");
+            assertTrue(cursor.toParent() && cursor.getIdentifier() == 2, "back to parent");
+            assertTrue(tree.find(100) == null, "missing node");
+            assertEquals("人力资源部", tree.dfs(x -> x.getValue().startsWith("人力")).getValue(), "dfs");
+            assertTrue(tree.allocatedBytes() > 0, "allocated bytes");
+        }
+
+        // 编码后长度为0的值 第一个值以及恰好写满一块时都不会越界
+        try (OffHeapTree<String> tree = new OffHeapTree<>(new StringCodec(), BufferAllocator.direct(), 8)) {
+            tree.add(1, "");
+            tree.add(2, 1, "12345678");
+            tree.add(3, 1, "");
+            tree.add(4, 1, "x");
+            tree.add(5, 1, null);
+            tree.treeize();
+            assertEquals(Arrays.asList("0 ", "1 12345678", "1 ", "1 x", "1 null"), layers(tree), "empty, full-chunk and null values");
+            assertEquals(0, tree.find(3).getValueBuffer().remaining(), "empty value buffer");
+            assertTrue(tree.find(5).getValueBuffer() == null, "null value buffer");
+            assertThrows(IllegalArgumentException.class, () -> tree.add(6, 1, "123456789"), "value larger than a chunk");
+        }
+
+        // 树化前添加失败时不会留下记录 重试后树化得到的树不变
+        try (OffHeapTree<String> tree = new OffHeapTree<>(new StringCodec(), BufferAllocator.direct(), 8)) {
+            tree.add(1, "root");
+            assertThrows(IllegalArgumentException.class, () -> tree.add(2, 1, "123456789"), "rejected add before treeize");
+            tree.add(2, 1, "retry");
+            tree.treeize();
+            assertEquals(2, tree.size(), "size after rejected add");
+            assertEquals(Arrays.asList("0 root", "1 retry"), layers(tree), "depth-first order after rejected add");
+        }
+
+        System.out.println("OffHeapTreeTest passed");
+    }
+
+    /**
+     * 深度优先顺序的层数和值
+     */
+    private static List<String> layers(OffHeapTree<String> tree) {
+        List<String> list = new ArrayList<>();
+        tree.dft(x -> {
+            list.add(x.getLayer() + " " + x.getValue());
+        });
+        return list;
+    }
+
+    private static class StringCodec implements ValueCodec<String> {
+
+        @Override
+        public byte[] encode(String value) {
+            return value.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String decode(ByteBuffer buffer) {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void assertEquals(Object expected, Object actual, String message) {
+        if (!Objects.equals(expected, actual)) {
+            throw new AssertionError(message + ": expected <" + expected + "> but was <" + actual + ">");
+        }
+    }
+
+    private static void assertTrue(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    private static void assertThrows(Class<? extends Throwable> type, Runnable runnable, String message) {
+        try {
+            runnable.run();
+        } catch (Throwable e) {
+            if (type.isInstance(e)) {
+                return;
+            }
+            throw new AssertionError(message + ": expected " + type.getSimpleName() + " but was " + e, e);
+        }
+        throw new AssertionError(message + ": expected " + type.getSimpleName());
+    }
+
+}
@@ -0,0 +1,132 @@
+package com.mogudiandian.common.tree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * 测试路径模式
+ *
+ * @author Joshua Sun
+ * @since 2023/7/24
+ */
+public class PathPatternTest {
+
+    public static void main(String[] args) {
+        DepartmentTree departmentTree = departmentTree();
+
+        assertEquals(Arrays.asList("后台研发部", "中台研发部", "前台研发部"), select(departmentTree, "/tech/*/tech-*"), "/tech/*/tech-*");
+        assertEquals(Collections.singletonList("薪酬组"), select(departmentTree, "/admin/**/salary"), "/admin/**/salary");
+        assertEquals(Arrays.asList("中台产品部", "中台研发部", "中台运营部"), select(departmentTree, "/**/*-mw"), "/**/*-mw");
+        assertEquals(Arrays.asList("商品运营部", "活动运营部"), select(departmentTree, "/opr/opr-???"), "/opr/opr-???");
+        assertEquals(Collections.singletonList("总裁办"), select(departmentTree, "/boss"), "/boss");
+        assertEquals(Collections.emptyList(), select(departmentTree, "/tech/hr"), "/tech/hr");
+
+        // 过滤视图中只查询视图内的节点
+        FilteredTree<TreeTest.Department, String, DepartmentTreeNode> filteredTree = departmentTree.filter(x -> x.getValue().id.startsWith("tech"));
+        assertEquals(Collections.singletonList("产品研发中心"), names(filteredTree.select(PathPattern.compile("/*"), x -> x.getValue().id)), "filtered /*");
+        assertEquals(Collections.singletonList("中台研发部"), names(filteredTree.select(PathPattern.compile("/**/*-mw"), x -> x.getValue().id)), "filtered /**/*-mw");
+        assertEquals(Collections.emptyList(), names(filteredTree.select(PathPattern.compile("/boss"), x -> x.getValue().id)), "filtered /boss");
+
+        PathPattern pattern = PathPattern.compile("/admin/**/salary");
+        assertTrue(pattern.matches(departmentTree.find("salary"), x -> x.getValue().id), "salary matches");
+        assertTrue(!pattern.matches(departmentTree.find("job"), x -> x.getValue().id), "job does not match");
+
+        System.out.println("PathPatternTest passed");
+    }
+
+    private static List<String> select(DepartmentTree departmentTree, String pattern) {
+        return names(departmentTree.select(PathPattern.compile(pattern), x -> x.getValue().id));
+    }
+
+    /**
+     * 测试用的部门
+     * @return 部门列表 每次返回新的列表
+     */
+    private static List<TreeTest.Department> departments() {
+        List<TreeTest.Department> list = new ArrayList<>();
+
+        list.add(new TreeTest.Department("tech", "产品研发中心", null));
+        list.add(new TreeTest.Department("opr", "运营中心", null));
+        list.add(new TreeTest.Department("admin", "行政中心", null));
+        list.add(new TreeTest.Department("boss", "总裁办", null));
+        list.add(new TreeTest.Department("product", "产品部", "tech"));
+        list.add(new TreeTest.Department("develop", "研发部", "tech"));
+        list.add(new TreeTest.Department("product-mw", "中台产品部", "product"));
+        list.add(new TreeTest.Department("tech-be", "后台研发部", "develop"));
+        list.add(new TreeTest.Department("tech-mw", "中台研发部", "develop"));
+        list.add(new TreeTest.Department("tech-fe", "前台研发部", "develop"));
+        list.add(new TreeTest.Department("sec", "秘书部", "boss"));
+        list.add(new TreeTest.Department("admin2", "行政部", "admin"));
+        list.add(new TreeTest.Department("hr", "人力资源部", "admin"));
+        list.add(new TreeTest.Department("job", "招聘组", "hr"));
+        list.add(new TreeTest.Department("salary", "薪酬组", "hr"));
+        list.add(new TreeTest.Department("opr-sku", "商品运营部", "opr"));
+        list.add(new TreeTest.Department("opr-act", "活动运营部", "opr"));
+        list.add(new TreeTest.Department("opr-mw", "中台运营部", "opr"));
+
+        return list;
+    }
+
+    private static DepartmentTree departmentTree(List<TreeTest.Department> list) {
+        return new DepartmentTree(list.stream()
+                                      .map(DepartmentTreeNode::new)
+                                      .collect(Collectors.toList()));
+    }
+
+    private static DepartmentTree departmentTree() {
+        return departmentTree(departments());
+    }
+
+    private static List<String> names(Collection<DepartmentTreeNode> nodes) {
+        return nodes.stream()
+                    .map(x -> x.getValue().name)
+                    .collect(Collectors.toList());
+    }
+
+    private static void assertEquals(Object expected, Object actual, String message) {
+        if (!Objects.equals(expected, actual)) {
+            throw new AssertionError(message + ": expected <" + expected + "> but was <" + actual + ">");
+        }
+    }
+
+    private static void assertTrue(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    private static class DepartmentTreeNode extends AbstractTreeNode<TreeTest.Department, String, DepartmentTreeNode> {
+
+        public DepartmentTreeNode(TreeTest.Department value) {
+            super(value);
+        }
+
+        @Override
+        protected boolean isTopNode() {
+            return value.parentId == null;
+        }
+
+        @Override
+        protected String extractIdentifier() {
+            return value.id;
+        }
+
+        @Override
+        protected String extractParentIdentifier() {
+            return value.parentId;
+        }
+    }
+
+    private static class DepartmentTree extends AbstractTree<TreeTest.Department, String, DepartmentTreeNode> {
+
+        public <C extends Collection<DepartmentTreeNode>> DepartmentTree(C nodes) {
+            super(nodes, true, OrphanPolicy.TOP);
+        }
+    }
+
+}
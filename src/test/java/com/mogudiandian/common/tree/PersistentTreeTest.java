@@ -0,0 +1,191 @@
+package com.mogudiandian.common.tree;
+
+import com.mogudiandian.common.tree.TreeTest.Department;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 测试持久化树
+ *
+ * @author Joshua Sun
+ * @since 2023/7/24
+ */
+public class PersistentTreeTest {
+
+    public static void main(String[] args) {
+        DepartmentTree departmentTree = departmentTree();
+
+        // 从已有的树创建 顺序一致
+        PersistentTree<Department, String> v0 = PersistentTree.of(departmentTree);
+        assertEquals(18, v0.size(), "v0 size");
+        assertEquals(departmentTree.flat().stream().map(x -> x.getValue().id).collect(Collectors.toList()), ids(v0.flat()), "v0 order");
+
+        PersistentTree<Department, String> v1 = v0.add("develop", "tech-ai", new Department("tech-ai", "智能研发部", "develop"));
+        PersistentTree<Department, String> v2 = v1.move("hr", "develop");
+        PersistentTree<Department, String> v3 = v2.setValue("product", new Department("product", "产品设计部", "tech"));
+        PersistentTree<Department, String> v4 = v3.remove("develop");
+        v4.print(System.out, x -> x.getValue().name, "+-", "--");
+
+        // 每个版本独立
+        List<PersistentTree<Department, String>> versions = Arrays.asList(v0, v1, v2, v3, v4);
+        assertEquals(Arrays.asList(18, 19, 19, 19, 11), versions.stream().map(PersistentTree::size).collect(Collectors.toList()), "sizes");
+        assertEquals(Arrays.asList(0L, 1L, 2L, 3L, 4L), versions.stream().map(PersistentTree::getVersion).collect(Collectors.toList()), "versions");
+        assertEquals(Arrays.asList("tech-be", "tech-mw", "tech-fe", "tech-ai"), ids(v1.find("develop").getChildren()), "added as last child");
+        assertTrue(v0.find("tech-ai") == null, "v0 unchanged by add");
+        assertEquals(Arrays.asList("tech-be", "tech-mw", "tech-fe", "tech-ai", "hr"), ids(v2.find("develop").getChildren()), "moved as last child");
+        assertEquals(Collections.singletonList("admin2"), ids(v2.find("admin").getChildren()), "moved from admin");
+        assertEquals(Arrays.asList(2, 3), Arrays.asList(v1.layerOf("job"), v2.layerOf("job")), "layer of job");
+        assertEquals("develop", v2.getParent("hr").getIdentifier(), "parent after move");
+        assertEquals("产品设计部", v3.find("product").getValue().name, "v3 value");
+        assertEquals("产品部", v2.find("product").getValue().name, "v2 value unchanged");
+        assertTrue(!v4.contains("develop") && !v4.contains("job") && v4.find("job") == null, "descendants removed");
+        assertEquals(Collections.singletonList("product"), ids(v4.find("tech").getChildren()), "tech children after remove");
+        assertThrows(IllegalStateException.class, () -> v2.move("develop", "job"), "move under descendant");
+        assertThrows(IllegalStateException.class, () -> v0.add(null, "tech", null), "replicated node");
+        assertThrows(IllegalStateException.class, () -> v0.remove("none"), "remove missing node");
+
+        // 未修改的子树在版本间共享
+        assertTrue(v0.find("admin") == v1.find("admin"), "admin shared between v0 and v1");
+        assertTrue(v1.find("job") == v2.find("job"), "job shared between v1 and v2");
+        assertTrue(v1.find("tech") != v2.find("tech"), "tech copied between v1 and v2");
+
+        // 移除第一个、中间、最后一个兄弟节点后顺序正确
+        assertEquals(Arrays.asList("opr-act", "opr-mw"), ids(v0.remove("opr-sku").find("opr").getChildren()), "remove first");
+        assertEquals(Arrays.asList("opr-sku", "opr-mw"), ids(v0.remove("opr-act").find("opr").getChildren()), "remove middle");
+        PersistentTree<Department, String> withoutLast = v0.remove("opr-mw").add("opr", "opr-new", null);
+        assertEquals(Arrays.asList("opr-sku", "opr-act", "opr-new"), ids(withoutLast.find("opr").getChildren()), "remove last then add");
+        assertEquals("opr-act", withoutLast.find("opr").getChild(1).getIdentifier(), "child by index");
+        assertEquals(Arrays.asList("tech", "opr", "admin"), ids(v0.remove("boss").getTopNodes()), "remove top node");
+        int[] count = new int[1];
+        v0.dft(x -> {
+            count[0]++;
+        });
+        assertEquals(18, count[0], "dft all nodes");
+
+        // 很宽的节点 每次修改只复制路径
+        PersistentTree<Department, String> wide = PersistentTree.<Department, String>empty().add(null, "root", null);
+        int width = 100000;
+        for (int i = 0; i < width; i++) {
+            wide = wide.add("root", "n" + i, null);
+        }
+        PersistentTree<Department, String> edited = wide;
+        for (int i = 0; i < width; i += 2) {
+            edited = edited.remove("n" + i);
+        }
+        assertEquals(width / 2 + 1, edited.size(), "wide size");
+        assertEquals("n1", edited.find("root").getChild(0).getIdentifier(), "wide first child");
+        assertEquals(width + 1, wide.size(), "wide unchanged");
+
+        // 很深的树
+        int depth = 100000;
+        List<Department> chain = new ArrayList<>(depth);
+        chain.add(new Department("n0", "n0", null));
+        for (int i = 1; i < depth; i++) {
+            chain.add(new Department("n" + i, "n" + i, "n" + (i - 1)));
+        }
+        PersistentTree<Department, String> deep = PersistentTree.of(departmentTree(chain));
+        assertEquals(depth, deep.size(), "deep size");
+        assertEquals(depth - 1, deep.layerOf("n" + (depth - 1)), "deep layer");
+        assertEquals(depth / 2, deep.remove("n" + depth / 2).size(), "deep remove");
+
+        System.out.println("PersistentTreeTest passed");
+    }
+
+    private static List<String> ids(Collection<PersistentTree.Node<Department, String>> nodes) {
+        return nodes.stream().map(PersistentTree.Node::getIdentifier).collect(Collectors.toList());
+    }
+
+    /**
+     * 测试用的部门
+     * @return 部门列表 每次返回新的列表
+     */
+    private static List<Department> departments() {
+        List<Department> list = new ArrayList<>();
+
+        list.add(new Department("tech", "产品研发中心", null));
+        list.add(new Department("opr", "运营中心", null));
+        list.add(new Department("admin", "行政中心", null));
+        list.add(new Department("boss", "总裁办", null));
+        list.add(new Department("product", "产品部", "tech"));
+        list.add(new Department("develop", "研发部", "tech"));
+        list.add(new Department("product-mw", "中台产品部", "product"));
+        list.add(new Department("tech-be", "后台研发部", "develop"));
+        list.add(new Department("tech-mw", "中台研发部", "develop"));
+        list.add(new Department("tech-fe", "前台研发部", "develop"));
+        list.add(new Department("sec", "秘书部", "boss"));
+        list.add(new Department("admin2", "行政部", "admin"));
+        list.add(new Department("hr", "人力资源部", "admin"));
+        list.add(new Department("job", "招聘组", "hr"));
+        list.add(new Department("salary", "薪酬组", "hr"));
+        list.add(new Department("opr-sku", "商品运营部", "opr"));
+        list.add(new Department("opr-act", "活动运营部", "opr"));
+        list.add(new Department("opr-mw", "中台运营部", "opr"));
+
+        return list;
+    }
+
+    private static DepartmentTree departmentTree(List<Department> list) {
+        return new DepartmentTree(list.stream()
+                                      .map(DepartmentTreeNode::new)
+                                      .collect(Collectors.toList()));
+    }
+
+    private static DepartmentTree departmentTree() {
+        return departmentTree(departments());
+    }
+
+    private static void assertEquals(Object expected, Object actual, String message) {
+        if (!Objects.equals(expected, actual)) {
+            throw new AssertionError(message + ": expected <" + expected + "> but was <" + actual + ">");
+        }
+    }
+
+    private static void assertTrue(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    private static void assertThrows(Class<? extends Throwable> type, Runnable runnable, String message) {
+        try {
+            runnable.run();
+        } catch (Throwable e) {
+            if (type.isInstance(e)) {
+                return;
+            }
+            throw new AssertionError(message + ": expected " + type.getSimpleName() + " but was " + e, e);
+        }
+        throw new AssertionError(message + ": expected " + type.getSimpleName());
+    }
+
+    private static class DepartmentTreeNode extends AbstractTreeNode<Department, String, DepartmentTreeNode> {
+
+        public DepartmentTreeNode(Department value) {
+            super(value);
+        }
+
+        @Override
+        protected boolean isTopNode() {
+            return value.parentId == null;
+        }
+
+        @Override
+        protected String extractIdentifier() {
+            return value.id;
+        }
+
+        @Override
+        protected String extractParentIdentifier() {
+            return value.parentId;
+        }
+    }
+
+    private static class DepartmentTree extends AbstractTree<Department, String, DepartmentTreeNode> {
+
+        public <C extends Collection<DepartmentTreeNode>> DepartmentTree(C nodes) {
+            super(nodes, true, OrphanPolicy.TOP);
+        }
+    }
+
+}
@@ -0,0 +1,233 @@
+package com.mogudiandian.common.tree;
+
+import com.mogudiandian.common.tree.TreeTest.Department;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * 测试子树视图、摘除、嫁接与合并
+ *
+ * @author Joshua Sun
+ * @since 2023/7/24
+ */
+public class SubTreeTest {
+
+    public static void main(String[] args) {
+        // 子树视图只在子树中查找 通过视图摘除会修改所在的树
+        DepartmentTree departmentTree = departmentTree();
+        SubTree<Department, String, DepartmentTreeNode> tech = departmentTree.subtree(departmentTree.find("tech"));
+        assertEquals(7, tech.cachedSize(), "subtree size");
+        assertTrue(tech.find("tech-be") != null && tech.find("hr") == null, "subtree find");
+        SubTree<Department, String, DepartmentTreeNode> develop = tech.detach(departmentTree.find("develop"));
+        assertEquals(4, develop.cachedSize(), "detached size");
+        assertEquals(3, tech.cachedSize(), "subtree size after detach");
+        assertEquals(14, departmentTree.size(), "source size after detach through view");
+        assertTrue(departmentTree.find("tech-be") == null, "detached nodes unindexed");
+        assertTrue(develop.find("tech-be") != null && develop.getRoot().isTop(), "detached tree is standalone");
+
+        // 视图只能摘除和嫁接子树中的节点
+        assertThrows(IllegalArgumentException.class, () -> tech.detach(departmentTree.find("hr")), "detach outside subtree");
+        assertThrows(IllegalArgumentException.class, () -> tech.graft(departmentTree.find("hr"), incomingBoss()), "graft outside subtree");
+        assertEquals(14, departmentTree.size(), "source unchanged after rejected view operations");
+
+        // 摘除顶层节点 重复摘除时抛出异常
+        DepartmentTreeNode boss = departmentTree.find("boss");
+        departmentTree.detach(boss);
+        assertEquals(Arrays.asList("产品研发中心", "运营中心", "行政中心"), names(departmentTree.startNodes()), "top nodes after detach");
+        assertThrows(IllegalStateException.class, () -> departmentTree.detach(boss), "detach a node twice");
+
+        // 嫁接后被摘除的子树回到树上
+        departmentTree.graft(departmentTree.find("tech"), develop);
+        assertEquals(16, departmentTree.size(), "size after graft back");
+        assertEquals(departmentTree.find("tech"), departmentTree.find("tech-be").getParent().getParent(), "grafted under tech");
+
+        // 只能嫁接到当前树的节点下
+        DepartmentTree another = departmentTree();
+        assertThrows(IllegalArgumentException.class, () -> departmentTree.graft(another.find("admin"), incomingBoss()), "graft under a node of another tree");
+        assertEquals(16, departmentTree.size(), "size after rejected graft under another tree");
+
+        // 嫁接时唯一标识重复 拒绝时不修改树
+        DepartmentTree reject = departmentTree();
+        assertThrows(IllegalStateException.class, () -> reject.graft(reject.find("boss"), incomingHr()), "graft duplicates rejected");
+        assertEquals(18, reject.size(), "size after rejected graft");
+        assertEquals(Arrays.asList("行政部", "人力资源部"), names(reject.find("admin").getChildren()), "tree unchanged after rejected graft");
+
+        // 保留已有的节点 新节点中不重复的子节点转移到已有的节点下
+        DepartmentTree keepExisting = departmentTree();
+        keepExisting.graft(keepExisting.find("boss"), incomingHr(), AbstractTree.DuplicatePolicy.KEEP_EXISTING);
+        assertEquals(19, keepExisting.size(), "size after keeping existing");
+        DepartmentTreeNode hr = keepExisting.find("hr");
+        assertEquals("人力资源部", hr.getValue().name, "existing hr kept");
+        assertEquals(keepExisting.find("admin"), hr.getParent(), "existing hr stays in place");
+        assertEquals(Arrays.asList("招聘组", "薪酬组", "培训组"), names(hr.getChildren()), "incoming children moved to existing hr");
+        assertEquals("招聘组", keepExisting.find("job").getValue().name, "existing job kept");
+        assertEquals(Collections.singletonList("秘书部"), names(keepExisting.find("boss").getChildren()), "nothing attached under boss");
+
+        // 保留新加入的节点 已有的节点被移除 其不重复的子节点转移到新节点下
+        DepartmentTree keepIncoming = departmentTree();
+        keepIncoming.graft(keepIncoming.find("boss"), incomingHr(), AbstractTree.DuplicatePolicy.KEEP_INCOMING);
+        assertEquals(19, keepIncoming.size(), "size after keeping incoming");
+        hr = keepIncoming.find("hr");
+        assertEquals("人力资源中心", hr.getValue().name, "incoming hr kept");
+        assertEquals(keepIncoming.find("boss"), hr.getParent(), "incoming hr attached under boss");
+        assertEquals(Arrays.asList("新招聘组", "培训组", "薪酬组"), names(hr.getChildren()), "existing children moved to incoming hr");
+        assertEquals(Collections.singletonList("行政部"), names(keepIncoming.find("admin").getChildren()), "existing hr removed");
+        assertEquals(hr, keepIncoming.find("salary").getParent(), "salary indexed under incoming hr");
+        assertThrows(IllegalStateException.class, () -> keepIncoming.graft(keepIncoming.find("job"), incomingHr(), AbstractTree.DuplicatePolicy.KEEP_INCOMING),
+                     "cannot replace the attaching point's ancestor");
+
+        // 合并森林
+        DepartmentTree merged = departmentTree();
+        assertThrows(IllegalStateException.class, () -> merged.merge(incomingBoss()), "merge duplicates rejected");
+        merged.merge(incomingBoss(), AbstractTree.DuplicatePolicy.KEEP_EXISTING);
+        assertEquals(19, merged.size(), "size after merging and keeping existing");
+        assertEquals(Arrays.asList("秘书部", "副总裁办"), names(merged.find("boss").getChildren()), "incoming children merged into existing boss");
+        assertEquals("总裁办", merged.find("boss").getValue().name, "existing boss kept");
+
+        DepartmentTree replaced = departmentTree();
+        replaced.merge(incomingBoss(), AbstractTree.DuplicatePolicy.KEEP_INCOMING);
+        assertEquals(19, replaced.size(), "size after merging and keeping incoming");
+        assertEquals(Arrays.asList("产品研发中心", "运营中心", "行政中心", "董事会"), names(replaced.startNodes()), "incoming boss at top");
+        assertEquals(Arrays.asList("副总裁办", "秘书部"), names(replaced.find("boss").getChildren()), "existing children moved to incoming boss");
+
+        DepartmentTree other = departmentTree(Collections.singletonList(new Department("ceo", "首席执行官", null)));
+        replaced.merge(other);
+        assertEquals(20, replaced.size(), "size after merging without duplicates");
+        assertTrue(replaced.find("ceo").isTop(), "merged node at top");
+        assertThrows(IllegalStateException.class, () -> tech.merge(incomingBoss()), "tree cannot merge");
+
+        // 过滤视图是只读的
+        DepartmentTree source = departmentTree();
+        FilteredTree<Department, String, DepartmentTreeNode> filtered = source.filter(x -> x.getValue().id.startsWith("tech"));
+        assertThrows(IllegalStateException.class, () -> filtered.detach(source.find("develop")), "filtered detach");
+        assertThrows(IllegalStateException.class, () -> filtered.graft(source.find("tech"), incomingHr()), "filtered graft");
+        assertThrows(IllegalStateException.class, () -> filtered.merge(incomingBoss()), "filtered merge");
+        assertEquals(18, source.size(), "source unchanged");
+
+        System.out.println("SubTreeTest passed");
+    }
+
+    /**
+     * 与测试部门的hr、job重复的树
+     */
+    private static DepartmentTree incomingHr() {
+        List<Department> list = Arrays.asList(new Department("hr", "人力资源中心", null),
+                                              new Department("job", "新招聘组", "hr"),
+                                              new Department("train", "培训组", "hr"));
+        return departmentTree(list);
+    }
+
+    /**
+     * 与测试部门的boss重复的森林
+     */
+    private static DepartmentTree incomingBoss() {
+        List<Department> list = Arrays.asList(new Department("boss", "董事会", null),
+                                              new Department("vp", "副总裁办", "boss"));
+        return departmentTree(list);
+    }
+
+    /**
+     * 测试用的部门
+     * @return 部门列表 每次返回新的列表
+     */
+    private static List<Department> departments() {
+        List<Department> list = new ArrayList<>();
+
+        list.add(new Department("tech", "产品研发中心", null));
+        list.add(new Department("opr", "运营中心", null));
+        list.add(new Department("admin", "行政中心", null));
+        list.add(new Department("boss", "总裁办", null));
+        list.add(new Department("product", "产品部", "tech"));
+        list.add(new Department("develop", "研发部", "tech"));
+        list.add(new Department("product-mw", "中台产品部", "product"));
+        list.add(new Department("tech-be", "后台研发部", "develop"));
+        list.add(new Department("tech-mw", "中台研发部", "develop"));
+        list.add(new Department("tech-fe", "前台研发部", "develop"));
+        list.add(new Department("sec", "秘书部", "boss"));
+        list.add(new Department("admin2", "行政部", "admin"));
+        list.add(new Department("hr", "人力资源部", "admin"));
+        list.add(new Department("job", "招聘组", "hr"));
+        list.add(new Department("salary", "薪酬组", "hr"));
+        list.add(new Department("opr-sku", "商品运营部", "opr"));
+        list.add(new Department("opr-act", "活动运营部", "opr"));
+        list.add(new Department("opr-mw", "中台运营部", "opr"));
+
+        return list;
+    }
+
+    private static DepartmentTree departmentTree(List<Department> list) {
+        return new DepartmentTree(list.stream()
+                                      .map(DepartmentTreeNode::new)
+                                      .collect(Collectors.toList()));
+    }
+
+    private static DepartmentTree departmentTree() {
+        return departmentTree(departments());
+    }
+
+    private static List<String> names(Collection<DepartmentTreeNode> nodes) {
+        return nodes.stream()
+                    .map(x -> x.getValue().name)
+                    .collect(Collectors.toList());
+    }
+
+    private static void assertEquals(Object expected, Object actual, String message) {
+        if (!Objects.equals(expected, actual)) {
+            throw new AssertionError(message + ": expected <" + expected + "> but was <" + actual + ">");
+        }
+    }
+
+    private static void assertTrue(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    private static void assertThrows(Class<? extends Throwable> type, Runnable runnable, String message) {
+        try {
+            runnable.run();
+        } catch (Throwable e) {
+            if (type.isInstance(e)) {
+                return;
+            }
+            throw new AssertionError(message + ": expected " + type.getSimpleName() + " but was " + e, e);
+        }
+        throw new AssertionError(message + ": expected " + type.getSimpleName());
+    }
+
+    private static class DepartmentTreeNode extends AbstractTreeNode<Department, String, DepartmentTreeNode> {
+
+        public DepartmentTreeNode(Department value) {
+            super(value);
+        }
+
+        @Override
+        protected boolean isTopNode() {
+            return value.parentId == null;
+        }
+
+        @Override
+        protected String extractIdentifier() {
+            return value.id;
+        }
+
+        @Override
+        protected String extractParentIdentifier() {
+            return value.parentId;
+        }
+    }
+
+    private static class DepartmentTree extends AbstractTree<Department, String, DepartmentTreeNode> {
+
+        public <C extends Collection<DepartmentTreeNode>> DepartmentTree(C nodes) {
+            super(nodes, true, OrphanPolicy.TOP);
+        }
+    }
+
+}
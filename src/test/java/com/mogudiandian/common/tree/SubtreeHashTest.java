@@ -0,0 +1,151 @@
+package com.mogudiandian.common.tree;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * 测试子树指纹
+ *
+ * @author Joshua Sun
+ * @since 2023/7/24
+ */
+public class SubtreeHashTest {
+
+    public static void main(String[] args) {
+        List<TreeTest.Department> list = departments();
+        DepartmentTree departmentTree = departmentTree(list);
+        long fingerprint = departmentTree.fingerprint();
+        long techHash = departmentTree.find("tech").getSubtreeHash();
+        long oprHash = departmentTree.find("opr").getSubtreeHash();
+
+        // 子节点无序 相同的部门以不同顺序构造 指纹也相同
+        List<TreeTest.Department> shuffled = new ArrayList<>(list);
+        Collections.shuffle(shuffled);
+        assertEquals(fingerprint, departmentTree(shuffled).fingerprint(), "fingerprint of shuffled tree");
+
+        // 添加子节点 路径上的指纹失效 其它子树不变
+        DepartmentTreeNode develop = departmentTree.find("develop");
+        DepartmentTreeNode qa = new DepartmentTreeNode(new TreeTest.Department("tech-qa", "测试部", "develop"));
+        develop.addChild(qa);
+        assertTrue(departmentTree.find("tech").getSubtreeHash() != techHash, "tech hash changes after addChild");
+        assertEquals(oprHash, departmentTree.find("opr").getSubtreeHash(), "opr hash after addChild");
+        assertTrue(departmentTree.fingerprint() != fingerprint, "fingerprint changes after addChild");
+
+        // 隔离后恢复原来的指纹
+        qa.isolate();
+        assertEquals(techHash, departmentTree.find("tech").getSubtreeHash(), "tech hash after isolate");
+        assertEquals(fingerprint, departmentTree.fingerprint(), "fingerprint after isolate");
+
+        // 嫁接和摘除
+        DepartmentTree other = departmentTree(Collections.singletonList(new TreeTest.Department("train", "培训组", null)));
+        long adminHash = departmentTree.find("admin").getSubtreeHash();
+        departmentTree.graft(departmentTree.find("hr"), other);
+        assertTrue(departmentTree.find("admin").getSubtreeHash() != adminHash, "admin hash changes after graft");
+        assertEquals(techHash, departmentTree.find("tech").getSubtreeHash(), "tech hash after graft");
+        departmentTree.detach(departmentTree.find("train"));
+        assertEquals(adminHash, departmentTree.find("admin").getSubtreeHash(), "admin hash after detach");
+        assertEquals(fingerprint, departmentTree.fingerprint(), "fingerprint after detach");
+
+        // 很深的树 逐层计算不会栈溢出 只有路径上的指纹重新计算
+        int depth = 100000;
+        List<TreeTest.Department> chain = new ArrayList<>(depth);
+        chain.add(new TreeTest.Department("n0", "n0", null));
+        for (int i = 1; i < depth; i++) {
+            chain.add(new TreeTest.Department("n" + i, "n" + i, "n" + (i - 1)));
+        }
+        DepartmentTree deepTree = departmentTree(chain);
+        long deepFingerprint = deepTree.fingerprint();
+        DepartmentTreeNode middle = deepTree.find("n" + depth / 2);
+        long middleHash = middle.getSubtreeHash();
+        DepartmentTreeNode leaf = new DepartmentTreeNode(new TreeTest.Department("leaf", "leaf", null));
+        deepTree.find("n" + (depth - 1)).addChild(leaf);
+        assertTrue(middle.getSubtreeHash() != middleHash, "middle hash changes after addChild");
+        assertTrue(deepTree.fingerprint() != deepFingerprint, "deep fingerprint changes after addChild");
+        leaf.isolate();
+        assertEquals(middleHash, middle.getSubtreeHash(), "middle hash after isolate");
+        assertEquals(deepFingerprint, deepTree.fingerprint(), "deep fingerprint after isolate");
+
+        System.out.println("SubtreeHashTest passed");
+    }
+
+    /**
+     * 测试用的部门
+     * @return 部门列表 每次返回新的列表
+     */
+    private static List<TreeTest.Department> departments() {
+        List<TreeTest.Department> list = new ArrayList<>();
+
+        list.add(new TreeTest.Department("tech", "产品研发中心", null));
+        list.add(new TreeTest.Department("opr", "运营中心", null));
+        list.add(new TreeTest.Department("admin", "行政中心", null));
+        list.add(new TreeTest.Department("boss", "总裁办", null));
+        list.add(new TreeTest.Department("product", "产品部", "tech"));
+        list.add(new TreeTest.Department("develop", "研发部", "tech"));
+        list.add(new TreeTest.Department("product-mw", "中台产品部", "product"));
+        list.add(new TreeTest.Department("tech-be", "后台研发部", "develop"));
+        list.add(new TreeTest.Department("tech-mw", "中台研发部", "develop"));
+        list.add(new TreeTest.Department("tech-fe", "前台研发部", "develop"));
+        list.add(new TreeTest.Department("sec", "秘书部", "boss"));
+        list.add(new TreeTest.Department("admin2", "行政部", "admin"));
+        list.add(new TreeTest.Department("hr", "人力资源部", "admin"));
+        list.add(new TreeTest.Department("job", "招聘组", "hr"));
+        list.add(new TreeTest.Department("salary", "薪酬组", "hr"));
+        list.add(new TreeTest.Department("opr-sku", "商品运营部", "opr"));
+        list.add(new TreeTest.Department("opr-act", "活动运营部", "opr"));
+        list.add(new TreeTest.Department("opr-mw", "中台运营部", "opr"));
+
+        return list;
+    }
+
+    private static DepartmentTree departmentTree(List<TreeTest.Department> list) {
+        return new DepartmentTree(list.stream()
+                                      .map(DepartmentTreeNode::new)
+                                      .collect(Collectors.toList()));
+    }
+
+    private static void assertEquals(Object expected, Object actual, String message) {
+        if (!Objects.equals(expected, actual)) {
+            throw new AssertionError(message + ": expected <" + expected + "> but was <" + actual + ">");
+        }
+    }
+
+    private static void assertTrue(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    private static class DepartmentTreeNode extends AbstractTreeNode<TreeTest.Department, String, DepartmentTreeNode> {
+
+        public DepartmentTreeNode(TreeTest.Department value) {
+            super(value);
+        }
+
+        @Override
+        protected boolean isTopNode() {
+            return value.parentId == null;
+        }
+
+        @Override
+        protected String extractIdentifier() {
+            return value.id;
+        }
+
+        @Override
+        protected String extractParentIdentifier() {
+            return value.parentId;
+        }
+    }
+
+    private static class DepartmentTree extends AbstractTree<TreeTest.Department, String, DepartmentTreeNode> {
+
+        public <C extends Collection<DepartmentTreeNode>> DepartmentTree(C nodes) {
+            super(nodes, true, OrphanPolicy.TOP);
+        }
+    }
+
+}
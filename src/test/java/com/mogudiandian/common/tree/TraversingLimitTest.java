@@ -0,0 +1,156 @@
+package com.mogudiandian.common.tree;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 测试遍历限制
+ *
+ * @author Joshua Sun
+ * @since 2023/7/24
+ */
+public class TraversingLimitTest {
+
+    public static void main(String[] args) {
+        List<String> prunedIds = new ArrayList<>();
+        DepartmentTree departmentTree = new DepartmentTree(departments()
+                                                                                     .stream()
+                                                                                     .map(DepartmentTreeNode::new)
+                                                                                     .collect(Collectors.toList())) {
+            @Override
+            protected void pruned(DepartmentTreeNode node) {
+                prunedIds.add(node.getValue().id);
+            }
+        };
+
+        // 不限制时访问所有节点 不会剪枝
+        assertEquals(18, visit(departmentTree, departmentTree.startNodes(), AbstractTree.TraversingLimit.NONE).size(), "unlimited visits");
+        assertTrue(prunedIds.isEmpty(), "unlimited prunes nothing");
+
+        // 深度为0时只访问起始节点 起始节点都被剪枝
+        assertEquals(Arrays.asList("tech", "opr", "admin", "boss"), visit(departmentTree, departmentTree.startNodes(), AbstractTree.TraversingLimit.depth(0)), "depth 0");
+        assertEquals(Arrays.asList("tech", "opr", "admin", "boss"), prunedIds, "depth 0 pruned");
+
+        // 深度为1时访问两层 第二层的节点被剪枝 包括叶子节点
+        prunedIds.clear();
+        assertEquals(Arrays.asList("tech", "product", "develop", "opr", "opr-sku", "opr-act", "opr-mw", "admin", "admin2", "hr", "boss", "sec"),
+                     visit(departmentTree, departmentTree.startNodes(), AbstractTree.TraversingLimit.depth(1)), "depth 1");
+        assertEquals(Arrays.asList("product", "develop", "opr-sku", "opr-act", "opr-mw", "admin2", "hr", "sec"), prunedIds, "depth 1 pruned");
+
+        // 深度从遍历的起始节点开始计算
+        prunedIds.clear();
+        assertEquals(Arrays.asList("admin", "admin2", "hr"),
+                     visit(departmentTree, Collections.singletonList(departmentTree.find("admin")), AbstractTree.TraversingLimit.depth(1)), "depth from admin");
+        assertEquals(Arrays.asList("admin2", "hr"), prunedIds, "pruned from admin");
+
+        // 限制访问数量
+        prunedIds.clear();
+        assertEquals(Arrays.asList("tech", "product", "product-mw", "develop", "tech-be"),
+                     visit(departmentTree, departmentTree.startNodes(), AbstractTree.TraversingLimit.visits(5)), "max visits");
+        assertTrue(prunedIds.isEmpty(), "max visits prunes nothing");
+        assertTrue(visit(departmentTree, departmentTree.startNodes(), AbstractTree.TraversingLimit.visits(0)).isEmpty(), "zero visits");
+
+        // 同时限制深度和访问数量
+        assertEquals(Arrays.asList("tech", "product", "develop", "opr", "opr-sku"),
+                     visit(departmentTree, departmentTree.startNodes(), AbstractTree.TraversingLimit.of(1, 5)), "depth and visits");
+        assertEquals(Arrays.asList("product", "develop", "opr-sku"), prunedIds, "depth and visits pruned");
+
+        // 跳过的节点不会被剪枝
+        prunedIds.clear();
+        List<String> visited = new ArrayList<>();
+        departmentTree.dft(AbstractTree.TraversingLimit.depth(0), x -> {
+            visited.add(x.getValue().id);
+            return x.getValue().id.equals("tech") ? AbstractTree.TraversingAction.SKIP : AbstractTree.TraversingAction.CONTINUE;
+        });
+        assertEquals(Arrays.asList("tech", "opr", "admin", "boss"), visited, "skipped node visited");
+        assertEquals(Arrays.asList("opr", "admin", "boss"), prunedIds, "skipped node not pruned");
+
+        // 扁平化和查找使用同样的限制
+        assertEquals(12, departmentTree.flat(AbstractTree.TraversingLimit.depth(1)).size(), "flat with depth");
+        assertTrue(departmentTree.dfs(x -> x.getValue().id.equals("tech-be"), AbstractTree.TraversingLimit.depth(1)) == null, "dfs beyond depth");
+        assertEquals(departmentTree.find("tech-be"), departmentTree.dfs(x -> x.getValue().id.equals("tech-be"), AbstractTree.TraversingLimit.depth(2)), "dfs within depth");
+        assertTrue(departmentTree.dfs(x -> x.getValue().id.equals("opr"), AbstractTree.TraversingLimit.visits(3)) == null, "dfs beyond visits");
+
+        System.out.println("TraversingLimitTest passed");
+    }
+
+    private static List<String> visit(DepartmentTree tree, Collection<DepartmentTreeNode> fromNodes, AbstractTree.TraversingLimit limit) {
+        List<String> visited = new ArrayList<>();
+        tree.dft(fromNodes, limit, x -> {
+            visited.add(x.getValue().id);
+            return AbstractTree.TraversingAction.CONTINUE;
+        });
+        return visited;
+    }
+
+    /**
+     * 测试用的部门
+     * @return 部门列表 每次返回新的列表
+     */
+    private static List<TreeTest.Department> departments() {
+        List<TreeTest.Department> list = new ArrayList<>();
+
+        list.add(new TreeTest.Department("tech", "产品研发中心", null));
+        list.add(new TreeTest.Department("opr", "运营中心", null));
+        list.add(new TreeTest.Department("admin", "行政中心", null));
+        list.add(new TreeTest.Department("boss", "总裁办", null));
+        list.add(new TreeTest.Department("product", "产品部", "tech"));
+        list.add(new TreeTest.Department("develop", "研发部", "tech"));
+        list.add(new TreeTest.Department("product-mw", "中台产品部", "product"));
+        list.add(new TreeTest.Department("tech-be", "后台研发部", "develop"));
+        list.add(new TreeTest.Department("tech-mw", "中台研发部", "develop"));
+        list.add(new TreeTest.Department("tech-fe", "前台研发部", "develop"));
+        list.add(new TreeTest.Department("sec", "秘书部", "boss"));
+        list.add(new TreeTest.Department("admin2", "行政部", "admin"));
+        list.add(new TreeTest.Department("hr", "人力资源部", "admin"));
+        list.add(new TreeTest.Department("job", "招聘组", "hr"));
+        list.add(new TreeTest.Department("salary", "薪酬组", "hr"));
+        list.add(new TreeTest.Department("opr-sku", "商品运营部", "opr"));
+        list.add(new TreeTest.Department("opr-act", "活动运营部", "opr"));
+        list.add(new TreeTest.Department("opr-mw", "中台运营部", "opr"));
+
+        return list;
+    }
+
+    private static void assertEquals(Object expected, Object actual, String message) {
+        if (!Objects.equals(expected, actual)) {
+            throw new AssertionError(message + ": expected <" + expected + "> but was <" + actual + ">");
+        }
+    }
+
+    private static void assertTrue(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    private static class DepartmentTreeNode extends AbstractTreeNode<TreeTest.Department, String, DepartmentTreeNode> {
+
+        public DepartmentTreeNode(TreeTest.Department value) {
+            super(value);
+        }
+
+        @Override
+        protected boolean isTopNode() {
+            return value.parentId == null;
+        }
+
+        @Override
+        protected String extractIdentifier() {
+            return value.id;
+        }
+
+        @Override
+        protected String extractParentIdentifier() {
+            return value.parentId;
+        }
+    }
+
+    private static class DepartmentTree extends AbstractTree<TreeTest.Department, String, DepartmentTreeNode> {
+
+        public <C extends Collection<DepartmentTreeNode>> DepartmentTree(C nodes) {
+            super(nodes, true, OrphanPolicy.TOP);
+        }
+    }
+
+}
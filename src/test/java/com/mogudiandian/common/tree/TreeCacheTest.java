@@ -0,0 +1,237 @@
+package com.mogudiandian.common.tree;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 测试树缓存
+ *
+ * @author Joshua Sun
+ * @since 2023/7/24
+ */
+public class TreeCacheTest {
+
+    public static void main(String[] args) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            test(pool);
+        } finally {
+            pool.shutdown();
+        }
+        System.out.println("TreeCacheTest passed");
+    }
+
+    private static void test(ExecutorService pool) throws Exception {
+        // 多个线程同时读取同一个key只构造一次
+        AtomicInteger builds = new AtomicInteger();
+        TreeCache<String, DepartmentTree> cache = new TreeCache<>(key -> {
+            builds.incrementAndGet();
+            sleep(100);
+            return departments();
+        }, TreeCacheTest::departmentTree, 0, 0, 0);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<DepartmentTree>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                return cache.get("tenant");
+            }));
+        }
+        start.countDown();
+        Set<DepartmentTree> trees = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Future<DepartmentTree> future : futures) {
+            trees.add(future.get());
+        }
+        assertEquals(1, builds.get(), "concurrent gets build once");
+        assertEquals(1, trees.size(), "concurrent gets share the tree");
+        assertEquals(18, trees.iterator().next().size(), "built tree");
+
+        // 需要刷新时返回旧的树 刷新完成后返回新的树
+        AtomicInteger refreshes = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        TreeCache<String, DepartmentTree> refreshing = new TreeCache<>(key -> {
+            if (refreshes.getAndIncrement() > 0) {
+                await(release);
+            }
+            return departments();
+        }, TreeCacheTest::departmentTree, 0, 50, 0, pool);
+        DepartmentTree first = refreshing.get("tenant");
+        sleep(60);
+        assertTrue(refreshing.get("tenant") == first, "stale tree returned while refreshing");
+        assertTrue(refreshing.get("tenant") == first, "stale tree returned until refresh completes");
+        CompletableFuture<DepartmentTree> refresh = refreshing.refresh("tenant");
+        release.countDown();
+        DepartmentTree second = refresh.get();
+        assertEquals(2, refreshes.get(), "one background refresh");
+        assertTrue(second != first, "refresh builds a new tree");
+        assertTrue(refreshing.get("tenant") == second, "refreshed tree returned");
+        assertEquals(2L, refreshing.getVersion("tenant"), "version after refresh");
+
+        // 过期的树在读取其它key时被清除
+        TreeCache<String, DepartmentTree> expiring = new TreeCache<>(key -> departments(), TreeCacheTest::departmentTree, 0, 0, 50);
+        expiring.get("a");
+        sleep(60);
+        assertTrue(expiring.getIfPresent("a") == null, "expired tree is not returned");
+        expiring.get("b");
+        assertEquals(1, expiring.size(), "expired tree swept on get");
+        assertTrue(expiring.getIfPresent("b") != null, "fresh tree kept");
+
+        // 超过上限时淘汰最久未访问的
+        TreeCache<String, DepartmentTree> bounded = new TreeCache<>(key -> departments(), TreeCacheTest::departmentTree, 2, 0, 0);
+        bounded.get("a");
+        sleep(5);
+        bounded.get("b");
+        sleep(5);
+        bounded.get("a");
+        sleep(5);
+        bounded.get("c");
+        assertEquals(2, bounded.size(), "size capped");
+        assertTrue(bounded.getIfPresent("b") == null, "least recently used evicted");
+        assertTrue(bounded.getIfPresent("a") != null && bounded.getIfPresent("c") != null, "recently used kept");
+        assertEquals(1L, bounded.getStats().getEvictionCount(), "eviction count");
+
+        // 首次构造失败时抛出异常且不缓存
+        AtomicBoolean failing = new AtomicBoolean(true);
+        AtomicInteger attempts = new AtomicInteger();
+        TreeCache<String, DepartmentTree> failable = new TreeCache<>(key -> {
+            attempts.incrementAndGet();
+            if (failing.get()) {
+                throw new IllegalStateException("source unavailable");
+            }
+            return departments();
+        }, TreeCacheTest::departmentTree, 0, 50, 0, Runnable::run);
+        assertThrows(IllegalStateException.class, () -> failable.get("tenant"), "failed build propagates");
+        assertEquals(0, failable.size(), "failed first build not cached");
+
+        // 刷新失败时保留旧的树 在下一个刷新时间之前不重试
+        failing.set(false);
+        DepartmentTree cached = failable.get("tenant");
+        failing.set(true);
+        sleep(60);
+        assertTrue(failable.get("tenant") == cached, "failed refresh keeps the old tree");
+        int attemptsAfterFailure = attempts.get();
+        for (int i = 0; i < 10; i++) {
+            assertTrue(failable.get("tenant") == cached, "old tree returned during backoff");
+        }
+        assertEquals(attemptsAfterFailure, attempts.get(), "no retry during backoff");
+        assertEquals(2L, failable.getStats().getBuildFailureCount(), "failure count");
+        failing.set(false);
+        sleep(60);
+        failable.get("tenant");
+        assertTrue(failable.get("tenant") != cached, "retried after backoff");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 测试用的部门
+     * @return 部门列表 每次返回新的列表
+     */
+    private static List<TreeTest.Department> departments() {
+        List<TreeTest.Department> list = new ArrayList<>();
+
+        list.add(new TreeTest.Department("tech", "产品研发中心", null));
+        list.add(new TreeTest.Department("opr", "运营中心", null));
+        list.add(new TreeTest.Department("admin", "行政中心", null));
+        list.add(new TreeTest.Department("boss", "总裁办", null));
+        list.add(new TreeTest.Department("product", "产品部", "tech"));
+        list.add(new TreeTest.Department("develop", "研发部", "tech"));
+        list.add(new TreeTest.Department("product-mw", "中台产品部", "product"));
+        list.add(new TreeTest.Department("tech-be", "后台研发部", "develop"));
+        list.add(new TreeTest.Department("tech-mw", "中台研发部", "develop"));
+        list.add(new TreeTest.Department("tech-fe", "前台研发部", "develop"));
+        list.add(new TreeTest.Department("sec", "秘书部", "boss"));
+        list.add(new TreeTest.Department("admin2", "行政部", "admin"));
+        list.add(new TreeTest.Department("hr", "人力资源部", "admin"));
+        list.add(new TreeTest.Department("job", "招聘组", "hr"));
+        list.add(new TreeTest.Department("salary", "薪酬组", "hr"));
+        list.add(new TreeTest.Department("opr-sku", "商品运营部", "opr"));
+        list.add(new TreeTest.Department("opr-act", "活动运营部", "opr"));
+        list.add(new TreeTest.Department("opr-mw", "中台运营部", "opr"));
+
+        return list;
+    }
+
+    private static DepartmentTree departmentTree(List<TreeTest.Department> list) {
+        return new DepartmentTree(list.stream()
+                                      .map(DepartmentTreeNode::new)
+                                      .collect(Collectors.toList()));
+    }
+
+    private static DepartmentTree departmentTree() {
+        return departmentTree(departments());
+    }
+
+    private static void assertEquals(Object expected, Object actual, String message) {
+        if (!Objects.equals(expected, actual)) {
+            throw new AssertionError(message + ": expected <" + expected + "> but was <" + actual + ">");
+        }
+    }
+
+    private static void assertTrue(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    private static void assertThrows(Class<? extends Throwable> type, Runnable runnable, String message) {
+        try {
+            runnable.run();
+        } catch (Throwable e) {
+            if (type.isInstance(e)) {
+                return;
+            }
+            throw new AssertionError(message + ": expected " + type.getSimpleName() + " but was " + e, e);
+        }
+        throw new AssertionError(message + ": expected " + type.getSimpleName());
+    }
+
+    private static class DepartmentTreeNode extends AbstractTreeNode<TreeTest.Department, String, DepartmentTreeNode> {
+
+        public DepartmentTreeNode(TreeTest.Department value) {
+            super(value);
+        }
+
+        @Override
+        protected boolean isTopNode() {
+            return value.parentId == null;
+        }
+
+        @Override
+        protected String extractIdentifier() {
+            return value.id;
+        }
+
+        @Override
+        protected String extractParentIdentifier() {
+            return value.parentId;
+        }
+    }
+
+    private static class DepartmentTree extends AbstractTree<TreeTest.Department, String, DepartmentTreeNode> {
+
+        public <C extends Collection<DepartmentTreeNode>> DepartmentTree(C nodes) {
+            super(nodes, true, OrphanPolicy.TOP);
+        }
+    }
+
+}